@@ -0,0 +1,85 @@
+package com.targetindia.miniproject.benchmarks;
+
+import com.targetindia.miniproject.dao.ColumnarCustomerTable;
+import com.targetindia.miniproject.model.Customer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * The queries of {@link com.targetindia.miniproject.dao.CustomerQueries}
+ * on a {@link ColumnarCustomerTable}, against the same queries as streams
+ * over a list of {@link Customer} objects, which is how the in-memory daos
+ * answer them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class ColumnarScanBenchmark {
+
+    private static final String CITY = "Pune";
+    private static final String EMAIL_PREFIX = "customer12";
+
+    @Param({"100000", "1000000"})
+    public int size;
+
+    private List<Customer> rows;
+    private ColumnarCustomerTable table;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        rows = new ArrayList<>(Daos.customers(0, size));
+        for (int i = 0; i < size; i++) {
+            rows.get(i).setId(i + 1);
+        }
+        table = ColumnarCustomerTable.of(rows);
+    }
+
+    @Benchmark
+    public Map<String, Long> countByCityRows() {
+        return rows.stream().collect(Collectors.groupingBy(Customer::getCity, Collectors.counting()));
+    }
+
+    @Benchmark
+    public Map<String, Integer> countByCityColumns() {
+        return table.countByCity();
+    }
+
+    @Benchmark
+    public long countOneCityRows() {
+        return rows.stream().filter(c -> CITY.equals(c.getCity())).count();
+    }
+
+    @Benchmark
+    public int countOneCityColumns() {
+        return table.countByCity(CITY);
+    }
+
+    @Benchmark
+    public List<Customer> emailPrefixRows() {
+        return rows.stream().filter(c -> c.getEmail() != null && c.getEmail().startsWith(EMAIL_PREFIX)).toList();
+    }
+
+    @Benchmark
+    public List<Customer> emailPrefixColumns() {
+        return table.findByEmailPrefix(EMAIL_PREFIX);
+    }
+}
@@ -0,0 +1,87 @@
+package com.targetindia.miniproject.benchmarks;
+
+import com.targetindia.miniproject.dao.CustomerDao;
+import com.targetindia.miniproject.dao.DaoException;
+import com.targetindia.miniproject.model.Customer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mixed read/write throughput of the daos that can be shared by threads:
+ * six threads look customers up by id and email while two update them.
+ * JMH reports the reads and the writes of the group separately.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConcurrentMixedBenchmark {
+
+    @Param({"Concurrent", "OffHeap", "MappedFile"})
+    public String dao;
+
+    @Param({"100000"})
+    public int size;
+
+    private CustomerDao customerDao;
+    private Path dir;
+    private List<Customer> customers;
+
+    @Setup(Level.Trial)
+    public void setUp() throws DaoException {
+        dir = Daos.createTempDir();
+        customerDao = Daos.create(dao, dir);
+        customers = Daos.fill(customerDao, Daos.customers(0, size));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws DaoException {
+        customerDao.close();
+        Daos.deleteDir(dir);
+    }
+
+    private Customer randomCustomer() {
+        return customers.get(ThreadLocalRandom.current().nextInt(customers.size()));
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(6)
+    public Customer read() throws DaoException {
+        var customer = randomCustomer();
+        return ThreadLocalRandom.current().nextBoolean()
+                ? customerDao.getById(customer.getId())
+                : customerDao.getByEmail(customer.getEmail());
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(2)
+    public Customer write() throws DaoException {
+        var customer = randomCustomer();
+        var updated = new Customer(customer.getId(), "Renamed " + System.nanoTime(),
+                customer.getCity(), customer.getEmail(), customer.getPhone());
+        customerDao.update(updated);
+        return updated;
+    }
+}
@@ -0,0 +1,82 @@
+package com.targetindia.miniproject.benchmarks;
+
+import com.targetindia.miniproject.dao.CsvFileCustomerDao;
+import com.targetindia.miniproject.dao.DaoException;
+import com.targetindia.miniproject.model.Customer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loading a customers.csv: {@link CsvFileCustomerDao}, which verifies the
+ * checksum and parses row-aligned chunks in parallel with
+ * {@link com.targetindia.miniproject.utils.CsvReader}, against the
+ * BufferedReader and String.split loop it replaced.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class CsvLoadBenchmark {
+
+    @Param({"100000", "1000000"})
+    public int rows;
+
+    private Path dir;
+    private String filename;
+
+    @Setup(Level.Trial)
+    public void setUp() throws DaoException {
+        dir = Daos.createTempDir();
+        filename = dir.resolve("customers.csv").toString();
+        Daos.fill(new CsvFileCustomerDao(filename), Daos.customers(0, rows));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        Daos.deleteDir(dir);
+    }
+
+    @Benchmark
+    public CsvFileCustomerDao csvReader() {
+        return new CsvFileCustomerDao(filename);
+    }
+
+    @Benchmark
+    public Map<Integer, Customer> bufferedReaderSplit() throws IOException {
+        var customers = new LinkedHashMap<Integer, Customer>();
+        try (var in = new BufferedReader(new FileReader(filename))) {
+            in.readLine(); // header
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.startsWith("#")) {
+                    continue; // checksum footer
+                }
+                var arr = line.split(",");
+                var customer = new Customer(Integer.parseInt(arr[0]), arr[1], arr[2], arr[3], arr[4]);
+                customers.put(customer.getId(), customer);
+            }
+        }
+        return customers;
+    }
+}
@@ -0,0 +1,150 @@
+package com.targetindia.miniproject.benchmarks;
+
+import com.targetindia.miniproject.dao.CustomerDao;
+import com.targetindia.miniproject.dao.DaoException;
+import com.targetindia.miniproject.model.Customer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Every {@link CustomerDao} operation, for each implementation, on a dao
+ * filled with {@code size} customers. File backed daos write to a temp
+ * directory and Jpa to an in-memory H2 database; all of them write every
+ * change before returning.
+ * <p>
+ * Customers saved by {@link #save()} are deleted after each iteration, so
+ * every iteration starts at the same size. {@link #deleteById(Victim)}
+ * deletes a customer saved just before the call, outside the measured time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CustomerDaoBenchmark {
+
+    @Param({"ArrayList", "HashIndex", "Concurrent", "OffHeap", "CsvFile", "Journal", "MappedFile", "Jpa"})
+    public String dao;
+
+    @Param({"1000", "100000"})
+    public int size;
+
+    CustomerDao customerDao;
+    private Path dir;
+    private List<Customer> customers;
+    // keys of the customers saved during the benchmark start after the filled ones
+    private AtomicInteger nextKey;
+    private final List<Integer> savedIds = Collections.synchronizedList(new ArrayList<>());
+
+    @Setup(Level.Trial)
+    public void setUp() throws DaoException {
+        dir = Daos.createTempDir();
+        customerDao = Daos.create(dao, dir);
+        customers = Daos.fill(customerDao, Daos.customers(0, size));
+        nextKey = new AtomicInteger(size);
+    }
+
+    @TearDown(Level.Iteration)
+    public void deleteSaved() throws DaoException {
+        if (!savedIds.isEmpty()) {
+            customerDao.deleteAllById(new ArrayList<>(savedIds));
+            savedIds.clear();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws DaoException {
+        customerDao.close();
+        Daos.deleteDir(dir);
+    }
+
+    private Customer randomCustomer() {
+        return customers.get(ThreadLocalRandom.current().nextInt(customers.size()));
+    }
+
+    Customer newCustomer() {
+        return Daos.customer(nextKey.getAndIncrement());
+    }
+
+    @Benchmark
+    public Customer save() throws DaoException {
+        var saved = customerDao.save(newCustomer());
+        savedIds.add(saved.getId());
+        return saved;
+    }
+
+    @Benchmark
+    public Customer getById() throws DaoException {
+        return customerDao.getById(randomCustomer().getId());
+    }
+
+    @Benchmark
+    public Customer getByEmail() throws DaoException {
+        return customerDao.getByEmail(randomCustomer().getEmail());
+    }
+
+    @Benchmark
+    public Customer getByPhone() throws DaoException {
+        return customerDao.getByPhone(randomCustomer().getPhone());
+    }
+
+    @Benchmark
+    public List<Customer> getByCity() throws DaoException {
+        return customerDao.getByCity(Daos.CITIES.get(ThreadLocalRandom.current().nextInt(Daos.CITIES.size())));
+    }
+
+    @Benchmark
+    public Customer update() throws DaoException {
+        var customer = randomCustomer();
+        // a copy, so that daos that hand out their own instances see a real change
+        var updated = new Customer(customer.getId(), "Renamed " + System.nanoTime(),
+                customer.getCity(), customer.getEmail(), customer.getPhone());
+        customerDao.update(updated);
+        return updated;
+    }
+
+    @Benchmark
+    public Customer deleteById(Victim victim) throws DaoException {
+        return customerDao.deleteById(victim.id);
+    }
+
+    @Benchmark
+    public List<Customer> getAll() throws DaoException {
+        return customerDao.getAll();
+    }
+
+    /**
+     * A customer saved before each call of {@link #deleteById(Victim)}.
+     * Invocation-level setup adds some timing noise, which is small next to
+     * the cost of a delete in all but the hash-indexed daos.
+     */
+    @State(Scope.Thread)
+    public static class Victim {
+        int id;
+
+        @Setup(Level.Invocation)
+        public void setUp(CustomerDaoBenchmark benchmark) throws DaoException {
+            id = benchmark.customerDao.save(benchmark.newCustomer()).getId();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.targetindia.miniproject.benchmarks;
+
+import com.targetindia.miniproject.dao.ArrayListCustomerDao;
+import com.targetindia.miniproject.dao.ConcurrentCustomerDao;
+import com.targetindia.miniproject.dao.CsvFileCustomerDao;
+import com.targetindia.miniproject.dao.CustomerDao;
+import com.targetindia.miniproject.dao.DaoException;
+import com.targetindia.miniproject.dao.GroupCommitConfig;
+import com.targetindia.miniproject.dao.HashIndexCustomerDao;
+import com.targetindia.miniproject.dao.JournalCustomerDao;
+import com.targetindia.miniproject.dao.JpaCustomerDao;
+import com.targetindia.miniproject.dao.MappedFileCustomerDao;
+import com.targetindia.miniproject.dao.OffHeapCustomerDao;
+import com.targetindia.miniproject.model.Customer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Creates the daos under test and the customers they are filled with.
+ */
+final class Daos {
+    private Daos() {
+    }
+
+    static final List<String> CITIES = List.of(
+            "Bangalore", "Chennai", "Delhi", "Hyderabad", "Kolkata", "Mumbai", "Pune", "Ahmedabad",
+            "Jaipur", "Lucknow", "Kochi", "Indore", "Bhopal", "Nagpur", "Surat", "Mysore");
+
+    // rows saved per saveAll call while filling a dao
+    private static final int FILL_BATCH = 10_000;
+
+    // file backed daos keep their files in dir; they write every change before returning
+    static CustomerDao create(String name, Path dir) throws DaoException {
+        return create(name, dir, null);
+    }
+
+    static CustomerDao create(String name, Path dir, GroupCommitConfig groupCommit) throws DaoException {
+        return switch (name) {
+            case "ArrayList" -> new ArrayListCustomerDao();
+            case "HashIndex" -> new HashIndexCustomerDao();
+            case "Concurrent" -> new ConcurrentCustomerDao();
+            case "OffHeap" -> new OffHeapCustomerDao();
+            case "CsvFile" -> new CsvFileCustomerDao(dir.resolve("customers.csv").toString(), groupCommit);
+            case "Journal" -> new JournalCustomerDao(dir.resolve("customers.journal").toString(), groupCommit);
+            case "MappedFile" -> new MappedFileCustomerDao(dir.resolve("customers.dat").toString());
+            case "Jpa" -> {
+                // read by JpaUtil when it creates the EntityManagerFactory, so before the first query
+                System.setProperty("jakarta.persistence.jdbc.url", "jdbc:h2:mem:miniproject;DB_CLOSE_DELAY=-1");
+                System.setProperty("hibernate.hbm2ddl.auto", "create");
+                yield new JpaCustomerDao();
+            }
+            default -> throw new IllegalArgumentException("unknown dao " + name);
+        };
+    }
+
+    // count customers without ids; the keys of customer i are unique to i
+    static List<Customer> customers(int from, int count) {
+        var customers = new ArrayList<Customer>(count);
+        for (int i = from; i < from + count; i++) {
+            customers.add(customer(i));
+        }
+        return customers;
+    }
+
+    static Customer customer(int i) {
+        return new Customer(null,
+                "Customer " + i,
+                CITIES.get(i % CITIES.size()),
+                "customer" + i + "@example.com",
+                String.format("8%09d", i));
+    }
+
+    // saves the customers in batches and returns them with their ids
+    static List<Customer> fill(CustomerDao dao, List<Customer> customers) throws DaoException {
+        var saved = new ArrayList<Customer>(customers.size());
+        for (int i = 0; i < customers.size(); i += FILL_BATCH) {
+            saved.addAll(dao.saveAll(customers.subList(i, Math.min(customers.size(), i + FILL_BATCH))));
+        }
+        return saved;
+    }
+
+    static Path createTempDir() {
+        try {
+            return Files.createTempDirectory("miniproject-bench");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static void deleteDir(Path dir) {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.targetindia.miniproject.benchmarks;
+
+import com.targetindia.miniproject.dao.CustomerDao;
+import com.targetindia.miniproject.dao.DaoException;
+import com.targetindia.miniproject.dao.GroupCommitConfig;
+import com.targetindia.miniproject.model.Customer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Durable save throughput of the file backed daos with concurrent writers:
+ * the CSV snapshot store against the append-only journal and the
+ * memory-mapped store, each writing every change on its own ({@code sync})
+ * or in batches on a flusher thread ({@code group}).
+ * <p>
+ * Both modes fsync what they write: a sync journal forces every append, a
+ * group journal every batch, and the CSV store forces every snapshot. The
+ * mapped store has no group mode and leaves the write-back to the OS, so
+ * its {@code group} runs are the same as {@code sync}.
+ * <p>
+ * {@code size} is the number of customers the store holds before the
+ * writers start: the CSV store rewrites all of them with every snapshot,
+ * while a journal append does not depend on it, so the gap between the two
+ * grows with it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class GroupCommitBenchmark {
+
+    @Param({"CsvFile", "Journal", "MappedFile"})
+    public String dao;
+
+    @Param({"sync", "group"})
+    public String durability;
+
+    @Param({"10000", "100000", "1000000"})
+    public int size;
+
+    private CustomerDao customerDao;
+    private Path dir;
+    private AtomicInteger nextKey;
+    private final List<Integer> savedIds = Collections.synchronizedList(new ArrayList<>());
+
+    @Setup(Level.Trial)
+    public void setUp() throws DaoException {
+        dir = Daos.createTempDir();
+        var groupCommit = "group".equals(durability) ? new GroupCommitConfig(256, 2, true) : null;
+        customerDao = Daos.create(dao, dir, groupCommit);
+        Daos.fill(customerDao, Daos.customers(0, size));
+        nextKey = new AtomicInteger(size);
+    }
+
+    @TearDown(Level.Iteration)
+    public void deleteSaved() throws DaoException {
+        if (!savedIds.isEmpty()) {
+            customerDao.deleteAllById(new ArrayList<>(savedIds));
+            savedIds.clear();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws DaoException {
+        customerDao.close();
+        Daos.deleteDir(dir);
+    }
+
+    @Benchmark
+    public Customer save() throws DaoException {
+        var saved = customerDao.save(Daos.customer(nextKey.getAndIncrement()));
+        savedIds.add(saved.getId());
+        return saved;
+    }
+}
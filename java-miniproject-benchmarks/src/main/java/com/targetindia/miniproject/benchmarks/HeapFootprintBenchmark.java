@@ -0,0 +1,101 @@
+package com.targetindia.miniproject.benchmarks;
+
+import com.targetindia.miniproject.dao.CustomerDao;
+import com.targetindia.miniproject.dao.DaoException;
+import com.targetindia.miniproject.dao.GroupCommitConfig;
+import com.targetindia.miniproject.model.Customer;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What a large store costs the garbage collector: {@link
+ * com.targetindia.miniproject.dao.OffHeapCustomerDao} against the map-based
+ * stores, {@link com.targetindia.miniproject.dao.CsvFileCustomerDao} (its
+ * customerMap) and {@link com.targetindia.miniproject.dao.HashIndexCustomerDao}.
+ * <p>
+ * {@link #fullGc(Footprint)} times a full collection with the filled store
+ * as the live set, which is the pause a full GC costs, and reports the heap
+ * used after it as {@code heapAfterGcMb}. {@link #getById()} is meant to be
+ * run with {@code -prof gc}, which shows the allocation rate and the young
+ * collections of serving reads from each store.
+ * <p>
+ * The CSV store is filled in group-commit mode without waiting, so that
+ * filling it does not rewrite the file once per batch; what is measured
+ * is its heap, not its file.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class HeapFootprintBenchmark {
+
+    @Param({"OffHeap", "CsvFile", "HashIndex"})
+    public String dao;
+
+    @Param({"1000000", "2000000"})
+    public int size;
+
+    private CustomerDao customerDao;
+    private Path dir;
+    private int firstId;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Footprint {
+        public long heapAfterGcMb;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            heapAfterGcMb = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws DaoException {
+        dir = Daos.createTempDir();
+        customerDao = Daos.create(dao, dir, new GroupCommitConfig(256, 1000, false));
+        // the filled list is dropped here, so that only the store stays live
+        firstId = Daos.fill(customerDao, Daos.customers(0, size)).get(0).getId();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws DaoException {
+        customerDao.close();
+        Daos.deleteDir(dir);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public long fullGc(Footprint footprint) {
+        System.gc();
+        long used = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+        footprint.heapAfterGcMb = used >> 20;
+        return used;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Customer getById() throws DaoException {
+        // the fill takes consecutive ids, unless another process shares the seed file
+        return customerDao.getById(firstId + ThreadLocalRandom.current().nextInt(size));
+    }
+}
@@ -0,0 +1,57 @@
+package com.targetindia.miniproject.benchmarks;
+
+import com.targetindia.miniproject.utils.IdGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Id allocation under contention. {@link IdGenerator} writes its seed file
+ * (__seed__, in the working directory) once per block of ids, so these runs
+ * include those writes.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IdGeneratorBenchmark {
+
+    @Benchmark
+    @Threads(1)
+    public int generate1Thread() {
+        return IdGenerator.generate();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public int generate4Threads() {
+        return IdGenerator.generate();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public int generate16Threads() {
+        return IdGenerator.generate();
+    }
+
+    @Benchmark
+    @Threads(64)
+    public int generate64Threads() {
+        return IdGenerator.generate();
+    }
+
+    // a batch of ids, as saveAll takes them
+    @Benchmark
+    @Threads(16)
+    public int generateBatchOf100() {
+        return IdGenerator.generate(100);
+    }
+}
@@ -0,0 +1,130 @@
+package com.targetindia.miniproject.benchmarks;
+
+import com.targetindia.miniproject.utils.IntHashMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link IntHashMap} against the boxed {@link HashMap} and
+ * {@link LinkedHashMap} it replaced as the id index of the in-memory daos:
+ * filling a map with {@code size} ids, and looking up 1024 random ids that
+ * are all present.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IntHashMapBenchmark {
+
+    private static final int LOOKUPS = 1024;
+
+    @Param({"1000", "1000000"})
+    public int size;
+
+    private int[] keys;
+    private int[] lookups;
+    private IntHashMap<String> intHashMap;
+    private Map<Integer, String> hashMap;
+    private Map<Integer, String> linkedHashMap;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        var random = new Random(42);
+        keys = new int[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = i + 1;
+        }
+        // ids arrive mostly in order, but not quite
+        for (int i = size - 1; i > 0; i--) {
+            if (random.nextInt(10) == 0) {
+                int j = random.nextInt(i + 1);
+                int key = keys[i];
+                keys[i] = keys[j];
+                keys[j] = key;
+            }
+        }
+        lookups = new int[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            lookups[i] = keys[random.nextInt(size)];
+        }
+        intHashMap = new IntHashMap<>();
+        hashMap = new HashMap<>();
+        linkedHashMap = new LinkedHashMap<>();
+        for (int key : keys) {
+            intHashMap.put(key, "v");
+            hashMap.put(key, "v");
+            linkedHashMap.put(key, "v");
+        }
+    }
+
+    @Benchmark
+    public IntHashMap<String> putIntHashMap() {
+        var map = new IntHashMap<String>();
+        for (int key : keys) {
+            map.put(key, "v");
+        }
+        return map;
+    }
+
+    @Benchmark
+    public Map<Integer, String> putHashMap() {
+        var map = new HashMap<Integer, String>();
+        for (int key : keys) {
+            map.put(key, "v");
+        }
+        return map;
+    }
+
+    @Benchmark
+    public Map<Integer, String> putLinkedHashMap() {
+        var map = new LinkedHashMap<Integer, String>();
+        for (int key : keys) {
+            map.put(key, "v");
+        }
+        return map;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public void getIntHashMap(Blackhole blackhole) {
+        for (int key : lookups) {
+            blackhole.consume(intHashMap.get(key));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public void getHashMap(Blackhole blackhole) {
+        for (int key : lookups) {
+            blackhole.consume(hashMap.get(key));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public void getLinkedHashMap(Blackhole blackhole) {
+        for (int key : lookups) {
+            blackhole.consume(linkedHashMap.get(key));
+        }
+    }
+}
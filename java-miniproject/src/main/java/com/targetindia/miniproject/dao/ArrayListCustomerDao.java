@@ -2,6 +2,7 @@ package com.targetindia.miniproject.dao;
 
 import com.targetindia.miniproject.model.Customer;
 import com.targetindia.miniproject.utils.IdGenerator;
+import com.targetindia.miniproject.utils.IntHashMap;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -26,9 +27,9 @@ public class ArrayListCustomerDao implements CustomerDao {
 //        maxId++;
         int maxId = customers // list of customers
                 .stream() // stream of customers
-                .map(c -> c.getId()) // stream of integers (ids)
-                .max(Integer::compareTo)
-                .get() + 1;
+                .mapToInt(Customer::getId) // stream of ints (ids), without boxing
+                .max()
+                .orElse(0) + 1;
 
         customer.setId(maxId);
         customers.add(customer);
@@ -73,13 +74,68 @@ public class ArrayListCustomerDao implements CustomerDao {
             throw new DaoException("No customer found for id " + id);
         }
 
-        this.customers = this.customers.stream()
-                .filter(c -> c.getId() != id)
-                .toList();
+        // removing in place keeps the list mutable for later saves
+        this.customers.removeIf(c -> c.getId() == id);
 
         return customer;
     }
 
+    @Override
+    public List<Customer> saveAll(List<Customer> customers) throws DaoException {
+        // find the current max id once for the whole batch
+        int maxId = this.customers
+                .stream()
+                .mapToInt(Customer::getId)
+                .max()
+                .orElse(0);
+
+        for (Customer customer : customers) {
+            customer.setId(++maxId);
+        }
+        this.customers.addAll(customers);
+
+        return customers;
+    }
+
+    @Override
+    public void updateAll(List<Customer> customers) throws DaoException {
+        var positions = new IntHashMap<Integer>(this.customers.size());
+        for (int i = 0, j = this.customers.size(); i < j; i++) {
+            positions.put(this.customers.get(i).getId(), i);
+        }
+        for (Customer customer : customers) {
+            if (!positions.containsKey(customer.getId())) {
+                throw new DaoException("customer data not found for id " + customer.getId());
+            }
+        }
+        for (Customer customer : customers) {
+            this.customers.set(positions.get(customer.getId()), customer);
+        }
+    }
+
+    @Override
+    public List<Customer> deleteAllById(List<Integer> ids) throws DaoException {
+        var byId = new IntHashMap<Customer>(this.customers.size());
+        for (Customer c : this.customers) {
+            byId.put(c.getId(), c);
+        }
+        var deleted = new ArrayList<Customer>(ids.size());
+        for (int id : ids) {
+            Customer customer = byId.get(id);
+            if (customer == null) {
+                throw new DaoException("No customer found for id " + id);
+            }
+            deleted.add(customer);
+        }
+
+        for (int id : ids) {
+            byId.remove(id);
+        }
+        this.customers.removeIf(c -> !byId.containsKey(c.getId()));
+
+        return deleted;
+    }
+
     @Override
     public List<Customer> getAll() throws DaoException {
         return this.customers;
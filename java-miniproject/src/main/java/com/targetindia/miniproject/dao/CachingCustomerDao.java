@@ -0,0 +1,254 @@
+package com.targetindia.miniproject.dao;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.targetindia.miniproject.model.Customer;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Decorator that puts a size-bounded cache in front of any {@link CustomerDao}.
+ * <p>
+ * Customers are cached by id; email and phone are cached as keys to an id,
+ * and every hit through them is checked against the cached customer, so an
+ * entry left behind by an update or delete is detected and dropped. Misses
+ * are cached too (as empty optionals) until a save or update could make them
+ * stale. The caches are Caffeine caches, which evict with W-TinyLFU.
+ * <p>
+ * getAll, getByCity and the paging, streaming and search queries are passed
+ * through.
+ */
+public class CachingCustomerDao implements CustomerDao {
+
+    private final CustomerDao dao;
+
+    private final Cache<Integer, Optional<Customer>> customersById;
+    private final Cache<String, Optional<Integer>> idsByEmail;
+    private final Cache<String, Optional<Integer>> idsByPhone;
+
+    // bumped by every write; a value loaded while a write happened is not cached,
+    // since it may already be older than what the write invalidated
+    private final AtomicLong writes = new AtomicLong();
+
+    public CachingCustomerDao(CustomerDao dao, long maxSize) {
+        this.dao = dao;
+        this.customersById = newCache(maxSize);
+        this.idsByEmail = newCache(maxSize);
+        this.idsByPhone = newCache(maxSize);
+    }
+
+    private static <K, V> Cache<K, V> newCache(long maxSize) {
+        return Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+    }
+
+    public Map<String, CacheStats> getStats() {
+        var stats = new LinkedHashMap<String, CacheStats>();
+        stats.put("id", customersById.stats());
+        stats.put("email", idsByEmail.stats());
+        stats.put("phone", idsByPhone.stats());
+        return stats;
+    }
+
+    private static Customer copyOf(Customer customer) {
+        return new Customer(
+                customer.getId(),
+                customer.getName(),
+                customer.getCity(),
+                customer.getEmail(),
+                customer.getPhone());
+    }
+
+    // caches the value only if no write happened since version was read; the
+    // check runs inside compute, and a write bumps the counter before it
+    // invalidates, so an invalidation either sees the value and drops it, or
+    // comes after the counter already stopped the value from being cached
+    private <K, V> void putIfNoWrites(Cache<K, V> cache, K key, V value, long version) {
+        cache.asMap().compute(key, (k, cached) -> writes.get() == version ? value : cached);
+    }
+
+    private void cacheCustomer(Customer customer, long version) {
+        if (customer != null) {
+            putIfNoWrites(customersById, customer.getId(), Optional.of(copyOf(customer)), version);
+        }
+    }
+
+    private void invalidate(Customer customer) {
+        if (customer == null) {
+            return;
+        }
+        writes.incrementAndGet();
+        if (customer.getId() != null) {
+            customersById.invalidate(customer.getId());
+        }
+        if (customer.getEmail() != null) {
+            idsByEmail.invalidate(customer.getEmail());
+        }
+        if (customer.getPhone() != null) {
+            idsByPhone.invalidate(customer.getPhone());
+        }
+    }
+
+    private interface Loader<T> {
+        T load(String key) throws DaoException;
+    }
+
+    private Customer getByKey(String key,
+                              Cache<String, Optional<Integer>> ids,
+                              Function<Customer, String> field,
+                              Loader<Customer> loader) throws DaoException {
+        var cachedId = ids.getIfPresent(key);
+        if (cachedId != null) {
+            if (cachedId.isEmpty()) {
+                return null;
+            }
+            var customer = getById(cachedId.get());
+            if (customer != null && key.equals(field.apply(customer))) {
+                return customer;
+            }
+            // the customer changed since the key was cached
+            ids.invalidate(key);
+        }
+
+        long version = writes.get();
+        var customer = loader.load(key);
+        putIfNoWrites(ids, key, Optional.ofNullable(customer).map(Customer::getId), version);
+        cacheCustomer(customer, version);
+        return customer;
+    }
+
+    @Override
+    public Customer save(Customer customer) throws DaoException {
+        var saved = dao.save(customer);
+        // drops cached misses for the new keys
+        invalidate(saved);
+        return saved;
+    }
+
+    @Override
+    public Customer getById(int id) throws DaoException {
+        var cached = customersById.getIfPresent(id);
+        if (cached != null) {
+            return cached.map(CachingCustomerDao::copyOf).orElse(null);
+        }
+        long version = writes.get();
+        var customer = dao.getById(id);
+        putIfNoWrites(customersById, id, Optional.ofNullable(customer).map(CachingCustomerDao::copyOf), version);
+        return customer;
+    }
+
+    @Override
+    public void update(Customer customer) throws DaoException {
+        try {
+            dao.update(customer);
+        } finally {
+            // entries for the old email/phone are caught by the check in getByKey
+            invalidate(customer);
+        }
+    }
+
+    @Override
+    public Customer deleteById(int id) throws DaoException {
+        try {
+            var customer = dao.deleteById(id);
+            invalidate(customer);
+            return customer;
+        } finally {
+            writes.incrementAndGet();
+            customersById.invalidate(id);
+        }
+    }
+
+    @Override
+    public List<Customer> saveAll(List<Customer> customers) throws DaoException {
+        var saved = dao.saveAll(customers);
+        saved.forEach(this::invalidate);
+        return saved;
+    }
+
+    @Override
+    public void updateAll(List<Customer> customers) throws DaoException {
+        try {
+            dao.updateAll(customers);
+        } finally {
+            customers.forEach(this::invalidate);
+        }
+    }
+
+    @Override
+    public List<Customer> deleteAllById(List<Integer> ids) throws DaoException {
+        try {
+            var deleted = dao.deleteAllById(ids);
+            deleted.forEach(this::invalidate);
+            return deleted;
+        } finally {
+            writes.incrementAndGet();
+            customersById.invalidateAll(ids);
+        }
+    }
+
+    @Override
+    public List<Customer> getAll() throws DaoException {
+        return dao.getAll();
+    }
+
+    @Override
+    public List<Customer> getPage(int afterId, int limit) throws DaoException {
+        return dao.getPage(afterId, limit);
+    }
+
+    @Override
+    public Stream<Customer> streamAll() throws DaoException {
+        return dao.streamAll();
+    }
+
+    @Override
+    public Customer getByEmail(String email) throws DaoException {
+        if (email == null) {
+            return dao.getByEmail(null);
+        }
+        return getByKey(email, idsByEmail, Customer::getEmail, dao::getByEmail);
+    }
+
+    @Override
+    public Customer getByPhone(String phone) throws DaoException {
+        if (phone == null) {
+            return dao.getByPhone(null);
+        }
+        return getByKey(phone, idsByPhone, Customer::getPhone, dao::getByPhone);
+    }
+
+    @Override
+    public List<Customer> getByCity(String city) throws DaoException {
+        return dao.getByCity(city);
+    }
+
+    @Override
+    public List<Customer> searchByNamePrefix(String prefix, int limit) throws DaoException {
+        return dao.searchByNamePrefix(prefix, limit);
+    }
+
+    @Override
+    public List<Customer> searchByEmailPrefix(String prefix, int limit) throws DaoException {
+        return dao.searchByEmailPrefix(prefix, limit);
+    }
+
+    @Override
+    public List<Customer> searchByName(String name, int limit) throws DaoException {
+        return dao.searchByName(name, limit);
+    }
+
+    @Override
+    public void close() throws DaoException {
+        dao.close();
+    }
+}
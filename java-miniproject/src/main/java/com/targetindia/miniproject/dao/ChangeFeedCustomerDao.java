@@ -0,0 +1,217 @@
+package com.targetindia.miniproject.dao;
+
+import com.targetindia.miniproject.dao.CustomerChange.Type;
+import com.targetindia.miniproject.model.Customer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Decorator that publishes every save, update and delete made through it
+ * to a {@link CustomerChangeFeed}, with copies of the customer before and
+ * after the change.
+ * <p>
+ * A change is published once the dao has made it, so a failed write
+ * publishes nothing. The customer an update replaces is read from the dao
+ * first. Updates and deletes hold one of {@link #STRIPES} locks, picked by
+ * id, while they read, write and publish, so that the changes of a customer
+ * reach the feed in the order they were made. Changes of different
+ * customers, and saves, are not held up by each other. Changes made to the
+ * store without going through this dao are not seen.
+ */
+public class ChangeFeedCustomerDao implements CustomerDao {
+
+    private static final int STRIPES = 64;
+
+    private final CustomerDao dao;
+    private final CustomerChangeFeed feed;
+    private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+
+    public ChangeFeedCustomerDao(CustomerDao dao, CustomerChangeFeed feed) {
+        this.dao = dao;
+        this.feed = feed;
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    // a copy, so that later changes of the caller or of the dao do not show in the feed
+    private static Customer copy(Customer customer) {
+        if (customer == null) {
+            return null;
+        }
+        return new Customer(customer.getId(), customer.getName(), customer.getCity(),
+                customer.getEmail(), customer.getPhone());
+    }
+
+    private static List<Customer> copy(List<Customer> customers) {
+        var copies = new ArrayList<Customer>(customers.size());
+        for (var customer : customers) {
+            copies.add(copy(customer));
+        }
+        return copies;
+    }
+
+    // the locks of the given ids, each once and in a fixed order, so that
+    // two batches cannot wait for each other
+    private ReentrantLock[] lock(List<Integer> ids) {
+        var taken = new boolean[STRIPES];
+        for (var id : ids) {
+            taken[Math.floorMod(id, STRIPES)] = true;
+        }
+        var held = new ArrayList<ReentrantLock>();
+        for (int i = 0; i < STRIPES; i++) {
+            if (taken[i]) {
+                locks[i].lock();
+                held.add(locks[i]);
+            }
+        }
+        return held.toArray(new ReentrantLock[0]);
+    }
+
+    private static void unlock(ReentrantLock[] held) {
+        for (int i = held.length - 1; i >= 0; i--) {
+            held[i].unlock();
+        }
+    }
+
+    // CRUD
+
+    @Override
+    public Customer save(Customer customer) throws DaoException {
+        var saved = dao.save(customer);
+        feed.publish(Type.CREATE, null, copy(saved));
+        return saved;
+    }
+
+    @Override
+    public Customer getById(int id) throws DaoException {
+        return dao.getById(id);
+    }
+
+    @Override
+    public void update(Customer customer) throws DaoException {
+        var lock = locks[Math.floorMod(customer.getId(), STRIPES)];
+        lock.lock();
+        try {
+            var before = copy(dao.getById(customer.getId()));
+            dao.update(customer);
+            feed.publish(Type.UPDATE, before, copy(customer));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Customer deleteById(int id) throws DaoException {
+        var lock = locks[Math.floorMod(id, STRIPES)];
+        lock.lock();
+        try {
+            var deleted = dao.deleteById(id);
+            if (deleted != null) {
+                feed.publish(Type.DELETE, copy(deleted), null);
+            }
+            return deleted;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Batch operations
+    // a batch is published as one, which costs a single write of the change log
+
+    @Override
+    public List<Customer> saveAll(List<Customer> customers) throws DaoException {
+        var saved = dao.saveAll(customers);
+        feed.publish(Type.CREATE, null, copy(saved));
+        return saved;
+    }
+
+    @Override
+    public void updateAll(List<Customer> customers) throws DaoException {
+        var held = lock(customers.stream().map(Customer::getId).toList());
+        try {
+            var before = new ArrayList<Customer>(customers.size());
+            for (var customer : customers) {
+                before.add(copy(dao.getById(customer.getId())));
+            }
+            dao.updateAll(customers);
+            feed.publish(Type.UPDATE, before, copy(customers));
+        } finally {
+            unlock(held);
+        }
+    }
+
+    @Override
+    public List<Customer> deleteAllById(List<Integer> ids) throws DaoException {
+        var held = lock(ids);
+        try {
+            var deleted = dao.deleteAllById(ids);
+            var before = new ArrayList<Customer>(deleted.size());
+            for (var customer : deleted) {
+                if (customer != null) {
+                    before.add(copy(customer));
+                }
+            }
+            feed.publish(Type.DELETE, before, null);
+            return deleted;
+        } finally {
+            unlock(held);
+        }
+    }
+
+    // Queries
+
+    @Override
+    public List<Customer> getAll() throws DaoException {
+        return dao.getAll();
+    }
+
+    @Override
+    public Customer getByEmail(String email) throws DaoException {
+        return dao.getByEmail(email);
+    }
+
+    @Override
+    public Customer getByPhone(String phone) throws DaoException {
+        return dao.getByPhone(phone);
+    }
+
+    @Override
+    public List<Customer> getByCity(String city) throws DaoException {
+        return dao.getByCity(city);
+    }
+
+    @Override
+    public List<Customer> getPage(int afterId, int limit) throws DaoException {
+        return dao.getPage(afterId, limit);
+    }
+
+    @Override
+    public Stream<Customer> streamAll() throws DaoException {
+        return dao.streamAll();
+    }
+
+    @Override
+    public List<Customer> searchByNamePrefix(String prefix, int limit) throws DaoException {
+        return dao.searchByNamePrefix(prefix, limit);
+    }
+
+    @Override
+    public List<Customer> searchByEmailPrefix(String prefix, int limit) throws DaoException {
+        return dao.searchByEmailPrefix(prefix, limit);
+    }
+
+    @Override
+    public List<Customer> searchByName(String name, int limit) throws DaoException {
+        return dao.searchByName(name, limit);
+    }
+
+    // the feed outlives the dao; it is closed by whoever created it
+    @Override
+    public void close() throws DaoException {
+        dao.close();
+    }
+}
@@ -0,0 +1,201 @@
+package com.targetindia.miniproject.dao;
+
+import com.targetindia.miniproject.model.Customer;
+import com.targetindia.miniproject.utils.StringDictionary;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable, column-oriented snapshot of the customers, for the queries of
+ * {@link CustomerQueries}.
+ * <p>
+ * Every field is a column over the rows, which are sorted by id: ids are an
+ * {@code int[]}, cities are dictionary codes in an {@code int[]}, and names,
+ * emails and phones are UTF-8 bytes packed one after another into a single
+ * {@code byte[]} with an {@code int[]} of offsets. A scan is a tight loop
+ * over one primitive array (which the JIT can unroll and vectorise) rather
+ * than a field access on each of a million objects; prefix filters compare
+ * bytes with {@link Arrays#equals(byte[], int, int, byte[], int, int)},
+ * which is an intrinsic. {@link Customer} objects are only created for the
+ * rows a query returns.
+ * <p>
+ * Changes made through the dao after the snapshot was taken are not seen;
+ * take a new snapshot with {@link #of(CustomerDao)}.
+ */
+public class ColumnarCustomerTable implements CustomerQueries {
+
+    private final int size;
+    private final int[] ids;
+    private final int[] cityCodes;
+    private final StringDictionary cities;
+    private final StringColumn names;
+    private final StringColumn emails;
+    private final StringColumn phones;
+
+    private ColumnarCustomerTable(List<Customer> customers) {
+        customers.sort(Comparator.comparing(Customer::getId));
+        size = customers.size();
+        ids = new int[size];
+        cityCodes = new int[size];
+        cities = new StringDictionary();
+        names = new StringColumn(size);
+        emails = new StringColumn(size);
+        phones = new StringColumn(size);
+        for (int row = 0; row < size; row++) {
+            var customer = customers.get(row);
+            ids[row] = customer.getId();
+            cityCodes[row] = customer.getCity() == null ? -1 : cities.encode(customer.getCity());
+            names.add(customer.getName());
+            emails.add(customer.getEmail());
+            phones.add(customer.getPhone());
+        }
+    }
+
+    public static ColumnarCustomerTable of(Collection<Customer> customers) {
+        return new ColumnarCustomerTable(new ArrayList<>(customers));
+    }
+
+    // reads the dao through streamAll, so a file-backed dao is not copied into a list first
+    public static ColumnarCustomerTable of(CustomerDao dao) throws DaoException {
+        try (var customers = dao.streamAll()) {
+            return new ColumnarCustomerTable(customers.collect(ArrayList::new, ArrayList::add, ArrayList::addAll));
+        } catch (RuntimeException e) {
+            throw new DaoException(e);
+        }
+    }
+
+    private Customer row(int row) {
+        return new Customer(
+                ids[row],
+                names.get(row),
+                cityCodes[row] < 0 ? null : cities.decode(cityCodes[row]),
+                emails.get(row),
+                phones.get(row));
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Map<String, Integer> countByCity() {
+        int[] counts = new int[cities.size()];
+        int[] codes = cityCodes;
+        for (int row = 0; row < size; row++) {
+            int code = codes[row];
+            if (code >= 0) {
+                counts[code]++;
+            }
+        }
+        var result = new LinkedHashMap<String, Integer>();
+        for (int code = 0; code < counts.length; code++) {
+            result.put(cities.decode(code), counts[code]);
+        }
+        return result;
+    }
+
+    @Override
+    public int countByCity(String city) {
+        int code = cities.find(city);
+        if (code < 0) {
+            return 0;
+        }
+        int[] codes = cityCodes;
+        int count = 0;
+        for (int row = 0; row < size; row++) {
+            // branch-free, so the loop vectorises
+            count += codes[row] == code ? 1 : 0;
+        }
+        return count;
+    }
+
+    @Override
+    public List<Customer> findByCity(String city) {
+        int code = cities.find(city);
+        if (code < 0) {
+            return List.of();
+        }
+        int[] codes = cityCodes;
+        var result = new ArrayList<Customer>();
+        for (int row = 0; row < size; row++) {
+            if (codes[row] == code) {
+                result.add(row(row));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public List<Customer> findByEmailPrefix(String prefix) {
+        return findByPrefix(emails, prefix);
+    }
+
+    @Override
+    public List<Customer> findByPhonePrefix(String prefix) {
+        return findByPrefix(phones, prefix);
+    }
+
+    private List<Customer> findByPrefix(StringColumn column, String prefix) {
+        byte[] bytes = prefix.getBytes(StandardCharsets.UTF_8);
+        var result = new ArrayList<Customer>();
+        for (int row = 0; row < size; row++) {
+            if (column.startsWith(row, bytes)) {
+                result.add(row(row));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Strings of one column, as UTF-8 bytes packed into one array; the bytes
+     * of row i are {@code data[offsets[i]]} up to {@code data[offsets[i + 1]]}.
+     */
+    private static class StringColumn {
+        private byte[] data = new byte[1024];
+        private final int[] offsets;
+        private final BitSet nulls = new BitSet();
+        private int rows;
+
+        StringColumn(int capacity) {
+            offsets = new int[capacity + 1];
+        }
+
+        void add(String value) {
+            int start = offsets[rows];
+            if (value == null) {
+                nulls.set(rows);
+            } else {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                if (start + bytes.length > data.length) {
+                    data = Arrays.copyOf(data, Math.max(start + bytes.length, data.length * 2));
+                }
+                System.arraycopy(bytes, 0, data, start, bytes.length);
+                start += bytes.length;
+            }
+            offsets[++rows] = start;
+        }
+
+        String get(int row) {
+            if (nulls.get(row)) {
+                return null;
+            }
+            return new String(data, offsets[row], offsets[row + 1] - offsets[row], StandardCharsets.UTF_8);
+        }
+
+        boolean startsWith(int row, byte[] prefix) {
+            int start = offsets[row];
+            return offsets[row + 1] - start >= prefix.length
+                    && !nulls.get(row)
+                    && Arrays.equals(data, start, start + prefix.length, prefix, 0, prefix.length);
+        }
+    }
+}
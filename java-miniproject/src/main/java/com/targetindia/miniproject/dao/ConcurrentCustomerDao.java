@@ -0,0 +1,203 @@
+package com.targetindia.miniproject.dao;
+
+import com.targetindia.miniproject.model.Customer;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * In-memory dao that can be shared by many threads.
+ * <p>
+ * Reads never lock: they go straight to {@link ConcurrentHashMap}s that hold
+ * immutable-by-convention copies of the customers. Writes to the same id are
+ * serialised on one of {@link #STRIPES} lock stripes, while email and phone
+ * uniqueness across different ids is enforced by atomically claiming the key
+ * with {@code putIfAbsent}.
+ */
+public class ConcurrentCustomerDao implements CustomerDao {
+
+    private static final int STRIPES = 64;
+
+    private final Map<Integer, Customer> customersById = new ConcurrentHashMap<>();
+    private final Map<String, Integer> idByEmail = new ConcurrentHashMap<>();
+    private final Map<String, Integer> idByPhone = new ConcurrentHashMap<>();
+    private final Map<String, Set<Integer>> idsByCity = new ConcurrentHashMap<>();
+
+    private final AtomicInteger lastId = new AtomicInteger();
+    private final Object[] locks = new Object[STRIPES];
+
+    public ConcurrentCustomerDao() {
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    private Object lockFor(int id) {
+        return locks[Math.floorMod(id, STRIPES)];
+    }
+
+    private static Customer copyOf(Customer customer) {
+        return new Customer(
+                customer.getId(),
+                customer.getName(),
+                customer.getCity(),
+                customer.getEmail(),
+                customer.getPhone());
+    }
+
+    // claims the unique keys of the customer that it does not own yet;
+    // either all of them are claimed or none
+    private void claimKeys(Customer customer, Customer existing) throws DaoException {
+        int id = customer.getId();
+        String email = customer.getEmail();
+        String phone = customer.getPhone();
+        boolean newEmail = email != null && (existing == null || !email.equals(existing.getEmail()));
+        boolean newPhone = phone != null && (existing == null || !phone.equals(existing.getPhone()));
+
+        if (newEmail) {
+            var owner = idByEmail.putIfAbsent(email, id);
+            if (owner != null && owner != id) {
+                throw new DaoException("email " + email + " already exists for id " + owner);
+            }
+        }
+        if (newPhone) {
+            var owner = idByPhone.putIfAbsent(phone, id);
+            if (owner != null && owner != id) {
+                if (newEmail) {
+                    idByEmail.remove(email, id);
+                }
+                throw new DaoException("phone " + phone + " already exists for id " + owner);
+            }
+        }
+    }
+
+    private void releaseKeys(Customer customer, Customer replacement) {
+        int id = customer.getId();
+        if (customer.getEmail() != null
+                && (replacement == null || !customer.getEmail().equals(replacement.getEmail()))) {
+            idByEmail.remove(customer.getEmail(), id);
+        }
+        if (customer.getPhone() != null
+                && (replacement == null || !customer.getPhone().equals(replacement.getPhone()))) {
+            idByPhone.remove(customer.getPhone(), id);
+        }
+        if (customer.getCity() != null
+                && (replacement == null || !customer.getCity().equals(replacement.getCity()))) {
+            var sameCity = idsByCity.get(customer.getCity());
+            if (sameCity != null) {
+                sameCity.remove(id);
+            }
+        }
+    }
+
+    private void addToCity(Customer customer) {
+        if (customer.getCity() != null) {
+            idsByCity.computeIfAbsent(customer.getCity(), city -> ConcurrentHashMap.newKeySet())
+                    .add(customer.getId());
+        }
+    }
+
+    // a reader can see an index entry a moment before or after the customer
+    // itself changes, so the match is re-checked against the stored customer
+    private Customer lookup(Integer id, String value, Function<Customer, String> field) {
+        if (id == null) {
+            return null;
+        }
+        var customer = customersById.get(id);
+        return customer != null && value.equals(field.apply(customer)) ? copyOf(customer) : null;
+    }
+
+    @Override
+    public Customer save(Customer customer) throws DaoException {
+        var saved = copyOf(customer);
+        saved.setId(lastId.incrementAndGet());
+        synchronized (lockFor(saved.getId())) {
+            claimKeys(saved, null);
+            customersById.put(saved.getId(), saved);
+            addToCity(saved);
+        }
+        customer.setId(saved.getId());
+        return customer;
+    }
+
+    @Override
+    public Customer getById(int id) throws DaoException {
+        var customer = customersById.get(id);
+        return customer == null ? null : copyOf(customer);
+    }
+
+    @Override
+    public void update(Customer customer) throws DaoException {
+        var updated = copyOf(customer);
+        synchronized (lockFor(updated.getId())) {
+            var existing = customersById.get(updated.getId());
+            if (existing == null) {
+                throw new DaoException("customer data not found for id " + updated.getId());
+            }
+            claimKeys(updated, existing);
+            customersById.put(updated.getId(), updated);
+            releaseKeys(existing, updated);
+            addToCity(updated);
+        }
+    }
+
+    @Override
+    public Customer deleteById(int id) throws DaoException {
+        synchronized (lockFor(id)) {
+            var customer = customersById.remove(id);
+            if (customer == null) {
+                throw new DaoException("No customer found for id " + id);
+            }
+            releaseKeys(customer, null);
+            return customer;
+        }
+    }
+
+    @Override
+    public List<Customer> getAll() throws DaoException {
+        return customersById.values()
+                .stream()
+                .sorted(Comparator.comparing(Customer::getId))
+                .map(ConcurrentCustomerDao::copyOf)
+                .toList();
+    }
+
+    // not in id order, and weakly consistent: customers saved or deleted
+    // while the stream is being consumed may or may not be part of it
+    @Override
+    public Stream<Customer> streamAll() throws DaoException {
+        return customersById.values()
+                .stream()
+                .map(ConcurrentCustomerDao::copyOf);
+    }
+
+    @Override
+    public Customer getByEmail(String email) throws DaoException {
+        return email == null ? null : lookup(idByEmail.get(email), email, Customer::getEmail);
+    }
+
+    @Override
+    public Customer getByPhone(String phone) throws DaoException {
+        return phone == null ? null : lookup(idByPhone.get(phone), phone, Customer::getPhone);
+    }
+
+    @Override
+    public List<Customer> getByCity(String city) throws DaoException {
+        var sameCity = city == null ? null : idsByCity.get(city);
+        if (sameCity == null) {
+            return List.of();
+        }
+        return sameCity.stream()
+                .sorted()
+                .map(id -> lookup(id, city, Customer::getCity))
+                .filter(Objects::nonNull)
+                .toList();
+    }
+}
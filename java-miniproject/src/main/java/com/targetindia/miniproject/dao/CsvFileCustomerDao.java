@@ -1,70 +1,282 @@
 package com.targetindia.miniproject.dao;
 
 import com.targetindia.miniproject.model.Customer;
+import com.targetindia.miniproject.utils.CsvReader;
+import com.targetindia.miniproject.utils.GroupCommitter;
 import com.targetindia.miniproject.utils.IdGenerator;
+import com.targetindia.miniproject.utils.IntHashMap;
+import com.targetindia.miniproject.utils.SnapshotWriter;
+import com.targetindia.miniproject.utils.StringDictionary;
 import lombok.extern.slf4j.Slf4j;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
-import java.io.FileWriter;
-import java.io.PrintWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
-import java.util.LinkedHashMap;
+import java.util.Collection;
 import java.util.List;
-import java.util.Map;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 @Slf4j
-public class CsvFileCustomerDao implements CustomerDao {
+public class CsvFileCustomerDao implements CustomerDao, StorageStatistics {
 
-    private Map<Integer, Customer> customerMap = new LinkedHashMap<>();
-    private static final String FILENAME = "customers.csv";
+    private IntHashMap<Customer> customerMap = new IntHashMap<>();
+
+    // every city string is the dictionary's instance, and its code indexes
+    // the customers of that city
+    private final StringDictionary cities = new StringDictionary();
+    private final List<IntHashMap<Customer>> customersByCity = new ArrayList<>();
+    private static final String DEFAULT_FILENAME = "customers.csv";
+    private static final String HEADER = "ID,Name,City,Email,Phone";
+    private final Path path;
+
+    // null in the default mode, where every change rewrites the file right away
+    private final GroupCommitter<Boolean> committer;
+    private final boolean waitForDurability;
+
+    private final AtomicLong bytesWritten = new AtomicLong();
 
     public CsvFileCustomerDao() {
+        this(DEFAULT_FILENAME, GroupCommitConfig.fromDaoConfig());
+    }
+
+    public CsvFileCustomerDao(GroupCommitConfig groupCommit) {
+        this(DEFAULT_FILENAME, groupCommit);
+    }
+
+    public CsvFileCustomerDao(String filename) {
+        this(filename, null);
+    }
+
+    public CsvFileCustomerDao(String filename, GroupCommitConfig groupCommit) {
+        this.path = Path.of(filename);
         loadFromFile();
+        if (groupCommit == null) {
+            committer = null;
+            waitForDurability = true;
+        } else {
+            committer = new GroupCommitter<>("customer-csv-flusher", this::writeBatch,
+                    groupCommit.maxBatchSize(), groupCommit.maxDelayMillis());
+            waitForDurability = groupCommit.waitForDurability();
+        }
     }
 
+    // customers parsed from one byte range of the file, in file order
+    private record Chunk(List<Customer> customers, long rows, long malformed) {
+    }
+
+    // the checksum footer is verified first; then the rows are split into
+    // row-aligned byte ranges that are parsed in parallel on the common
+    // fork-join pool, and merged in file order into customerMap
     private void loadFromFile() {
-        try (
-                FileReader file = new FileReader(FILENAME);
-                BufferedReader in = new BufferedReader(file);
-        ) {
-            in.readLine(); // skip the first line which is header
-            String line;
-            while((line=in.readLine())!=null){
-                Customer customer = fromCsv(line);
-                customerMap.put(customer.getId(), customer);
+        long start = System.nanoTime();
+        if (!Files.exists(path)) {
+            log.info("{} not found, starting with no customers", path);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long end = SnapshotWriter.verify(channel);
+            long[] bounds = CsvReader.split(channel, end, Runtime.getRuntime().availableProcessors());
+            List<Chunk> chunks = IntStream.range(0, bounds.length - 1)
+                    .parallel()
+                    .mapToObj(i -> loadChunk(channel, bounds[i], bounds[i + 1], i == 0))
+                    .toList();
+
+            long rows = 0;
+            long malformed = 0;
+            for (Chunk chunk : chunks) {
+                for (Customer customer : chunk.customers()) {
+                    put(customer);
+                }
+                rows += chunk.rows();
+                malformed += chunk.malformed();
+            }
+            if (malformed > 0) {
+                log.warn("skipped {} malformed rows out of {} in {}", malformed, rows, path);
             }
+
+            double seconds = (System.nanoTime() - start) / 1e9;
+            log.info("loaded {} customers from {} in {} chunks in {} ms ({} rows/s)",
+                    customerMap.size(), path, chunks.size(),
+                    Math.round(seconds * 1000), Math.round(rows / Math.max(seconds, 1e-9)));
+        } catch (IOException e) {
+            // starting empty would overwrite the file with the next change
+            throw new UncheckedIOException("could not load " + path, e);
+        } catch (UncheckedIOException e) {
+            throw new UncheckedIOException("could not load " + path, e.getCause());
         } catch (Exception e) {
-            log.warn("error while loading CSV content into customerMap");
+            log.warn("error while loading CSV content into customerMap", e);
         }
     }
 
-    private void saveToFile() {
-        try (
-                FileWriter file = new FileWriter(FILENAME);
-                PrintWriter out = new PrintWriter(file);
-        ) {
-            out.println("ID,Name,City,Email,Phone");
-            customerMap.values()
-                    .stream()
-                    .map(this::toCsv)
-                    .forEach(out::println);
+    private Chunk loadChunk(FileChannel channel, long start, long end, boolean hasHeader) {
+        try (CsvReader in = new CsvReader(channel, start, end)) {
+            if (hasHeader) {
+                in.next(); // skip the first line which is header
+            }
+            var customers = new ArrayList<Customer>();
+            long malformed = 0;
+            while (in.next()) {
+                Customer customer = fromCsv(in);
+                if (customer == null) {
+                    malformed++;
+                } else {
+                    customers.add(customer);
+                }
+            }
+            return new Chunk(customers, in.getRowCount() - (hasHeader ? 1 : 0), malformed);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 
-        } catch (Exception e) {
-            log.warn("error trying to save customer data into csv file", e);
+    // rewrites the file now, or queues a rewrite in group-commit mode; the caller
+    // must hold the lock, and wait for the returned future after releasing it
+    private CompletableFuture<Void> saveToFile() throws IOException {
+        if (committer != null) {
+            return committer.submit(Boolean.TRUE);
+        }
+        writeFile(customerMap.values());
+        return CompletableFuture.completedFuture(null);
+    }
+
+    // the customers the ids map to now, null where there is none, taken
+    // before a change so that it can be undone
+    private List<Customer> entries(List<Integer> ids) {
+        var entries = new ArrayList<Customer>(ids.size());
+        for (int id : ids) {
+            entries.add(customerMap.get(id));
+        }
+        return entries;
+    }
+
+    // writes a change just made to customerMap. If the file cannot be written,
+    // the entries taken before the change are put back, so that a failed call
+    // leaves neither customerMap nor the next snapshot changed; a customer the
+    // caller modified in place can only be re-indexed, not put back. In
+    // group-commit mode nothing is written here, so nothing is undone: a
+    // failed batch fails the futures of its changes, but the changes stay in
+    // customerMap and go into the next snapshot that is written
+    private CompletableFuture<Void> saveToFile(List<Integer> ids, List<Customer> before) throws DaoException {
+        try {
+            return saveToFile();
+        } catch (IOException | RuntimeException e) {
+            // in reverse, so that an id given twice ends up with its first entry
+            for (int i = ids.size() - 1; i >= 0; i--) {
+                var previous = before.get(i);
+                if (previous == null) {
+                    remove(ids.get(i));
+                } else {
+                    put(previous);
+                }
+            }
+            throw new DaoException(e);
+        }
+    }
+
+    // runs on the flusher thread in group-commit mode: however many writes
+    // are in the batch, the file is rewritten once
+    private void writeBatch(List<Boolean> batch) throws IOException {
+        List<Customer> snapshot;
+        synchronized (this) {
+            snapshot = new ArrayList<>(customerMap.values());
         }
+        writeFile(snapshot);
+    }
 
+    @Override
+    public long getBytesWritten() {
+        return bytesWritten.get();
     }
 
-    private Customer fromCsv(String line) {
+    private void writeFile(Collection<Customer> customers) throws IOException {
+        long start = System.nanoTime();
+        bytesWritten.addAndGet(SnapshotWriter.write(path, HEADER, customers, this::toCsv));
+        log.debug("saved {} customers to {} in {} ms",
+                customers.size(), path, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private void awaitDurable(CompletableFuture<Void> written) throws DaoException {
+        if (!waitForDurability) {
+            return;
+        }
+        try {
+            written.join();
+        } catch (CompletionException e) {
+            throw new DaoException(e.getCause());
+        }
+    }
+
+    // keeps customerMap and the city index in step
+    private void put(Customer customer) {
+        var previous = customerMap.put(customer.getId(), customer);
+        int code = addToCity(customer);
+        if (previous == customer) {
+            // changed in place, so the city it was indexed under is not known any more
+            for (int other = 0; other < customersByCity.size(); other++) {
+                if (other != code) {
+                    customersByCity.get(other).remove(customer.getId());
+                }
+            }
+        } else if (previous != null && cities.find(previous.getCity()) != code) {
+            removeFromCity(previous);
+        }
+    }
+
+    private Customer remove(int id) {
+        var customer = customerMap.remove(id);
+        if (customer != null) {
+            removeFromCity(customer);
+        }
+        return customer;
+    }
+
+    private int addToCity(Customer customer) {
+        if (customer.getCity() == null) {
+            return -1;
+        }
+        int code = cities.encode(customer.getCity());
+        customer.setCity(cities.decode(code));
+        while (customersByCity.size() <= code) {
+            customersByCity.add(new IntHashMap<>());
+        }
+        customersByCity.get(code).put(customer.getId(), customer);
+        return code;
+    }
+
+    private void removeFromCity(Customer customer) {
+        int code = cities.find(customer.getCity());
+        if (code >= 0 && code < customersByCity.size()) {
+            customersByCity.get(code).remove(customer.getId());
+        }
+    }
+
+    // returns null for a row that does not hold a customer
+    private Customer fromCsv(CsvReader in) {
+        if (in.getFieldCount() != 5 || in.hasUnterminatedQuote()) {
+            // line numbers are relative to the chunk when the file is loaded in parallel
+            log.warn("malformed customer row at line {} of {}", in.getLineNumber(), path);
+            return null;
+        }
         try {
-            var arr = line.split(",");
             return new Customer(
-                    Integer.parseInt(arr[0]),
-                    arr[1],
-                    arr[2],
-                    arr[3],
-                    arr[4]
+                    in.getInt(0),
+                    in.getString(1),
+                    cities.intern(in.getString(2)),
+                    in.getString(3),
+                    in.getString(4)
             );
         } catch (NumberFormatException e) {
             log.warn("error trying to convert csv to Customer object", e);
@@ -76,28 +288,33 @@ public class CsvFileCustomerDao implements CustomerDao {
         if (customer == null) {
             return null;
         }
-        return String.format("%s,%s,%s,%s,%s",
-                customer.getId(),
-                customer.getName(),
-                customer.getCity(),
-                customer.getEmail(),
-                customer.getPhone());
+        return customer.getId()
+                + "," + CsvReader.quote(customer.getName())
+                + "," + CsvReader.quote(customer.getCity())
+                + "," + CsvReader.quote(customer.getEmail())
+                + "," + CsvReader.quote(customer.getPhone());
     }
 
     @Override
     public Customer save(Customer customer) throws DaoException {
-        try {
-            customer.setId(IdGenerator.generate());
-            customerMap.put(customer.getId(), customer);
-            saveToFile();
-            return customer;
-        } catch (Exception e) {
-            throw new DaoException(e);
+        CompletableFuture<Void> written;
+        synchronized (this) {
+            try {
+                customer.setId(IdGenerator.generate());
+            } catch (Exception e) {
+                throw new DaoException(e);
+            }
+            var ids = List.of(customer.getId());
+            var before = entries(ids);
+            put(customer);
+            written = saveToFile(ids, before);
         }
+        awaitDurable(written);
+        return customer;
     }
 
     @Override
-    public Customer getById(int id) throws DaoException {
+    public synchronized Customer getById(int id) throws DaoException {
         try {
             return customerMap.get(id);
         } catch (Exception e) {
@@ -107,37 +324,105 @@ public class CsvFileCustomerDao implements CustomerDao {
 
     @Override
     public void update(Customer customer) throws DaoException {
-        try {
-            if (customerMap.containsKey(customer.getId())) {
-                customerMap.put(customer.getId(), customer);
-                saveToFile();
-                return;
+        CompletableFuture<Void> written;
+        synchronized (this) {
+            if (!customerMap.containsKey(customer.getId())) {
+                throw new DaoException("customer data not found for id " + customer.getId());
             }
-        } catch (Exception e) {
-            throw new DaoException(e);
+            var ids = List.of(customer.getId());
+            var before = entries(ids);
+            put(customer);
+            written = saveToFile(ids, before);
         }
-
-        throw new DaoException("customer data not found for id " + customer.getId());
+        awaitDurable(written);
     }
 
     @Override
     public Customer deleteById(int id) throws DaoException {
-        try {
-            if (customerMap.containsKey(id)) {
-                var customer = customerMap.get(id);
-                customerMap.remove(id);
-                saveToFile();
-                return customer;
+        CompletableFuture<Void> written;
+        Customer customer;
+        synchronized (this) {
+            if (!customerMap.containsKey(id)) {
+                throw new DaoException("customer data not found for id " + id);
             }
-        } catch (Exception e) {
-            throw new DaoException(e);
+            var ids = List.of(id);
+            var before = entries(ids);
+            customer = remove(id);
+            written = saveToFile(ids, before);
         }
+        awaitDurable(written);
+        return customer;
+    }
 
-        throw new DaoException("customer data not found for id " + id);
+    @Override
+    public List<Customer> saveAll(List<Customer> customers) throws DaoException {
+        if (customers.isEmpty()) {
+            return customers;
+        }
+        CompletableFuture<Void> written;
+        synchronized (this) {
+            var ids = new ArrayList<Integer>(customers.size());
+            try {
+                // one id range reservation and one file write for the whole batch
+                int id = IdGenerator.generate(customers.size());
+                for (Customer customer : customers) {
+                    customer.setId(id);
+                    ids.add(id++);
+                }
+            } catch (Exception e) {
+                throw new DaoException(e);
+            }
+            var before = entries(ids);
+            for (Customer customer : customers) {
+                put(customer);
+            }
+            written = saveToFile(ids, before);
+        }
+        awaitDurable(written);
+        return customers;
     }
 
     @Override
-    public List<Customer> getAll() throws DaoException {
+    public void updateAll(List<Customer> customers) throws DaoException {
+        CompletableFuture<Void> written;
+        synchronized (this) {
+            for (Customer customer : customers) {
+                if (!customerMap.containsKey(customer.getId())) {
+                    throw new DaoException("customer data not found for id " + customer.getId());
+                }
+            }
+            var ids = customers.stream().map(Customer::getId).toList();
+            var before = entries(ids);
+            for (Customer customer : customers) {
+                put(customer);
+            }
+            written = saveToFile(ids, before);
+        }
+        awaitDurable(written);
+    }
+
+    @Override
+    public List<Customer> deleteAllById(List<Integer> ids) throws DaoException {
+        CompletableFuture<Void> written;
+        var deleted = new ArrayList<Customer>(ids.size());
+        synchronized (this) {
+            for (int id : ids) {
+                if (!customerMap.containsKey(id)) {
+                    throw new DaoException("customer data not found for id " + id);
+                }
+            }
+            var before = entries(ids);
+            for (int id : ids) {
+                deleted.add(remove(id));
+            }
+            written = saveToFile(ids, before);
+        }
+        awaitDurable(written);
+        return deleted;
+    }
+
+    @Override
+    public synchronized List<Customer> getAll() throws DaoException {
         try {
             return customerMap.values().stream().toList();
         } catch (Exception e) {
@@ -146,40 +431,103 @@ public class CsvFileCustomerDao implements CustomerDao {
     }
 
     @Override
-    public Customer getByEmail(String email) throws DaoException {
+    public Stream<Customer> streamAll() throws DaoException {
+        if (committer != null) {
+            // the file lags behind customerMap until the flusher catches up,
+            // so the stream is taken from a copy of the map
+            List<Customer> snapshot;
+            synchronized (this) {
+                snapshot = new ArrayList<>(customerMap.values());
+            }
+            return snapshot.stream();
+        }
+        // otherwise every change is written to the file before it returns, so
+        // the file can be read lazily instead of copying customerMap into a
+        // list; a snapshot replaces the file by a rename, so the open channel
+        // keeps seeing the snapshot the stream started with
+        if (!Files.exists(path)) {
+            // nothing was saved yet
+            return Stream.empty();
+        }
+        try {
+            var channel = FileChannel.open(path, StandardOpenOption.READ);
+            var in = new CsvReader(channel, 0, SnapshotWriter.dataEnd(channel));
+            in.next(); // header
+            var customers = new Spliterators.AbstractSpliterator<Customer>(
+                    Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+                @Override
+                public boolean tryAdvance(Consumer<? super Customer> action) {
+                    try {
+                        while (in.next()) {
+                            var customer = fromCsv(in);
+                            if (customer != null) {
+                                action.accept(customer);
+                                return true;
+                            }
+                        }
+                        return false;
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            };
+            return StreamSupport.stream(customers, false)
+                    .onClose(() -> {
+                        try {
+                            channel.close();
+                        } catch (IOException e) {
+                            log.warn("error while closing {}", path, e);
+                        }
+                    });
+        } catch (Exception e) {
+            throw new DaoException(e);
+        }
+    }
+
+    @Override
+    public synchronized Customer getByEmail(String email) throws DaoException {
         try {
             return customerMap.values()
                     .stream()
-                    .filter(customer -> customer.getEmail().equals(email))
+                    .filter(customer -> Objects.equals(customer.getEmail(), email))
                     .findFirst()
-                    .orElseThrow();
+                    .orElse(null);
         } catch (Exception e) {
             throw new DaoException(e);
         }
     }
 
     @Override
-    public Customer getByPhone(String phone) throws DaoException {
+    public synchronized Customer getByPhone(String phone) throws DaoException {
         try {
             return customerMap.values()
                     .stream()
-                    .filter(customer -> customer.getPhone().equals(phone))
+                    .filter(customer -> Objects.equals(customer.getPhone(), phone))
                     .findFirst()
-                    .orElseThrow();
+                    .orElse(null);
         } catch (Exception e) {
             throw new DaoException(e);
         }
     }
 
     @Override
-    public List<Customer> getByCity(String city) throws DaoException {
+    public synchronized List<Customer> getByCity(String city) throws DaoException {
         try {
-            return customerMap.values()
-                    .stream()
-                    .filter(customer -> customer.getCity().equals(city))
-                    .toList();
+            int code = cities.find(city);
+            if (code < 0 || code >= customersByCity.size()) {
+                return List.of();
+            }
+            return customersByCity.get(code).values().stream().toList();
         } catch (Exception e) {
             throw new DaoException(e);
         }
     }
+
+    // writes the changes still queued in group-commit mode and stops the flusher
+    @Override
+    public void close() {
+        if (committer != null) {
+            committer.close();
+        }
+    }
 }
@@ -0,0 +1,23 @@
+package com.targetindia.miniproject.dao;
+
+import com.targetindia.miniproject.model.Customer;
+
+/**
+ * One change made through a {@link CustomerDao}, as published by a
+ * {@link CustomerChangeFeed}. The customers are copies taken when the change
+ * was made; every consumer gets the same instances, so they must not be
+ * modified.
+ *
+ * @param sequence  position in the feed; the first change is 1 and every change adds one
+ * @param timestamp when the change was published, in milliseconds since the epoch
+ * @param type      what happened to the customer
+ * @param id        the id of the customer
+ * @param before    the customer before the change, null for a CREATE
+ * @param after     the customer after the change, null for a DELETE
+ */
+public record CustomerChange(long sequence, long timestamp, Type type, int id, Customer before, Customer after) {
+
+    public enum Type {
+        CREATE, UPDATE, DELETE
+    }
+}
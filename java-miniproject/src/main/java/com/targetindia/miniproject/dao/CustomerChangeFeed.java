@@ -0,0 +1,457 @@
+package com.targetindia.miniproject.dao;
+
+import com.targetindia.miniproject.dao.CustomerChange.Type;
+import com.targetindia.miniproject.model.Customer;
+import com.targetindia.miniproject.utils.CsvReader;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * The changes made through the daos, numbered in the order they were made,
+ * for consumers that keep a copy of the customers up to date (a cache, a
+ * search index, another system) without re-reading all of them.
+ * <p>
+ * A consumer remembers the sequence of the last change it has processed
+ * and asks for the changes after it, with {@link #read(long, int)},
+ * {@link #poll(long, int, long, TimeUnit)} or {@link #subscribe(long, Consumer)};
+ * 0 asks for all of them. The last {@code capacity} changes are kept in a
+ * ring buffer in memory. With a directory, every change is also appended to
+ * a segment log there, so that consumers further behind, or resuming after a
+ * restart, are served from disk; the sequence then also continues across
+ * restarts. A segment is a CSV file named after its first sequence,
+ * with one row per change:
+ * <pre>
+ * sequence,timestamp,CREATE,id,name,city,email,phone                              (after)
+ * sequence,timestamp,UPDATE,id,name,city,email,phone,name,city,email,phone        (before, after)
+ * sequence,timestamp,DELETE,id,name,city,email,phone                              (before)
+ * </pre>
+ * A new segment is started once the current one is {@code segmentBytes}
+ * long, and the oldest are deleted beyond {@code maxSegments}. The log is
+ * written, not fsynced, with every change.
+ * <p>
+ * Reading changes that are neither in memory nor on disk, or after a
+ * sequence the feed has not reached (because it restarted without a log),
+ * throws a {@link DaoException}: the consumer has to re-read all the
+ * customers and continue from {@link #getLastSequence()}.
+ */
+@Slf4j
+public class CustomerChangeFeed implements AutoCloseable {
+
+    private static final Pattern SEGMENT_NAME = Pattern.compile("changes-(\\d+)\\.log");
+
+    // changes a subscription asks for at a time
+    private static final int SUBSCRIPTION_BATCH = 256;
+
+    private final CustomerChange[] ring;
+    // null without a segment log
+    private final Path dir;
+    private final long segmentBytes;
+    private final int maxSegments;
+
+    // the fields below are guarded by this
+
+    private long lastSequence;
+    // the oldest change in the ring
+    private long firstInRing;
+    private volatile boolean closed;
+
+    // first sequence of a segment -> its file
+    private final TreeMap<Long, Path> segments = new TreeMap<>();
+    private FileOutputStream segment;
+    private long segmentSize;
+
+    // changes in memory only
+    public CustomerChangeFeed(int capacity) throws DaoException {
+        this(capacity, null, 0, 0);
+    }
+
+    public CustomerChangeFeed(int capacity, Path dir, long segmentBytes, int maxSegments) throws DaoException {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        this.ring = new CustomerChange[capacity];
+        this.dir = dir;
+        this.segmentBytes = segmentBytes;
+        this.maxSegments = Math.max(1, maxSegments);
+        if (dir != null) {
+            try {
+                openLog();
+            } catch (IOException e) {
+                throw new DaoException(e);
+            }
+        }
+        this.firstInRing = lastSequence + 1;
+    }
+
+    // finds the segments and the last sequence written to them
+    private void openLog() throws IOException {
+        Files.createDirectories(dir);
+        try (var files = Files.list(dir)) {
+            files.forEach(file -> {
+                var matcher = SEGMENT_NAME.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    segments.put(Long.parseLong(matcher.group(1)), file);
+                }
+            });
+        }
+        if (!segments.isEmpty()) {
+            var newest = segments.lastEntry();
+            truncateTornRow(newest.getValue());
+            lastSequence = newest.getKey() - 1;
+            try (var in = new CsvReader(newest.getValue())) {
+                while (in.next()) {
+                    var change = parseRecord(in);
+                    if (change == null) {
+                        // the next change is published with this row's sequence
+                        log.warn("the customer change at line {} of {} is malformed, the log resumes after {}",
+                                in.getLineNumber(), newest.getValue(), lastSequence);
+                        break;
+                    }
+                    lastSequence = change.sequence();
+                }
+            }
+        }
+        // appends go to a new segment, never after a row torn by a crash
+        log.info("customer change log in {} has {} segments, last sequence {}",
+                dir, segments.size(), lastSequence);
+    }
+
+    // cuts off a last row that a crash left without its line break; it may
+    // be cut short at a field boundary, and then still parse
+    private static void truncateTornRow(Path path) throws IOException {
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long end = channel.size();
+            var buffer = ByteBuffer.allocate(1);
+            while (end > 0) {
+                buffer.clear();
+                channel.read(buffer, end - 1);
+                if (buffer.get(0) == '\n') {
+                    break;
+                }
+                end--;
+            }
+            if (end < channel.size()) {
+                log.warn("dropping {} bytes of a torn customer change at the end of {}", channel.size() - end, path);
+                channel.truncate(end);
+            }
+        }
+    }
+
+    public synchronized long getLastSequence() {
+        return lastSequence;
+    }
+
+    // the oldest change that can still be read
+    public synchronized long getFirstSequence() {
+        return segments.isEmpty() ? firstInRing : segments.firstKey();
+    }
+
+    // Publishing
+
+    void publish(Type type, Customer before, Customer after) throws DaoException {
+        publish(type, before == null ? null : List.of(before), after == null ? null : List.of(after));
+    }
+
+    // one change per customer, of the same type; before or after is null
+    // when the type has no such image. A batch costs a single log write.
+    synchronized void publish(Type type, List<Customer> before, List<Customer> after) throws DaoException {
+        if (closed) {
+            throw new DaoException("the customer change feed is closed");
+        }
+        int count = before != null ? before.size() : after.size();
+        if (count == 0) {
+            return;
+        }
+        long timestamp = System.currentTimeMillis();
+        var changes = new ArrayList<CustomerChange>(count);
+        for (int i = 0; i < count; i++) {
+            var b = before == null ? null : before.get(i);
+            var a = after == null ? null : after.get(i);
+            changes.add(new CustomerChange(lastSequence + 1 + i, timestamp, type,
+                    a != null ? a.getId() : b.getId(), b, a));
+        }
+        if (dir != null) {
+            try {
+                append(changes);
+            } catch (IOException e) {
+                // the dao has made the changes already, so they are still
+                // published; readers of the log find the gap and fail
+                log.warn("error while appending to the customer change log", e);
+            }
+        }
+        for (var change : changes) {
+            ring[(int) (change.sequence() % ring.length)] = change;
+        }
+        lastSequence += count;
+        firstInRing = Math.max(firstInRing, lastSequence - ring.length + 1);
+        notifyAll();
+    }
+
+    private void append(List<CustomerChange> changes) throws IOException {
+        if (segment == null || segmentSize >= segmentBytes) {
+            startSegment(changes.get(0).sequence());
+        }
+        var records = new StringBuilder();
+        for (var change : changes) {
+            records.append(toRecord(change)).append('\n');
+        }
+        byte[] bytes = records.toString().getBytes(StandardCharsets.UTF_8);
+        segment.write(bytes);
+        segmentSize += bytes.length;
+    }
+
+    private void startSegment(long firstSequence) throws IOException {
+        if (segment != null) {
+            segment.close();
+        }
+        var path = dir.resolve(String.format("changes-%020d.log", firstSequence));
+        segment = new FileOutputStream(path.toFile(), true);
+        segmentSize = 0;
+        segments.put(firstSequence, path);
+        while (segments.size() > maxSegments) {
+            var oldest = segments.pollFirstEntry();
+            Files.deleteIfExists(oldest.getValue());
+            log.info("deleted the customer change segment {}", oldest.getValue());
+        }
+    }
+
+    private static String toRecord(CustomerChange change) {
+        var record = new StringBuilder()
+                .append(change.sequence())
+                .append(',').append(change.timestamp())
+                .append(',').append(change.type())
+                .append(',').append(change.id());
+        for (var customer : new Customer[]{change.before(), change.after()}) {
+            if (customer != null) {
+                record.append(',').append(CsvReader.quote(customer.getName()))
+                        .append(',').append(CsvReader.quote(customer.getCity()))
+                        .append(',').append(CsvReader.quote(customer.getEmail()))
+                        .append(',').append(CsvReader.quote(customer.getPhone()));
+            }
+        }
+        return record.toString();
+    }
+
+    // Reading
+
+    /**
+     * Returns up to {@code max} changes after the given sequence, in order;
+     * an empty list when there are none yet.
+     */
+    public List<CustomerChange> read(long afterSequence, int max) throws DaoException {
+        long from = afterSequence + 1;
+        Map<Long, Path> segmentsFrom;
+        synchronized (this) {
+            if (afterSequence > lastSequence) {
+                throw new DaoException("sequence " + afterSequence + " is ahead of the customer change feed, "
+                        + "which ends at " + lastSequence);
+            }
+            if (from >= firstInRing) {
+                long to = Math.min(lastSequence, from + max - 1);
+                var changes = new ArrayList<CustomerChange>((int) Math.max(0, to - from + 1));
+                for (long sequence = from; sequence <= to; sequence++) {
+                    changes.add(ring[(int) (sequence % ring.length)]);
+                }
+                return changes;
+            }
+            var first = segments.floorKey(from);
+            if (first == null) {
+                throw new DaoException("the customer changes after " + afterSequence
+                        + " are no longer available; the oldest is " + getFirstSequence());
+            }
+            segmentsFrom = new TreeMap<>(segments.tailMap(first));
+        }
+        return readSegments(segmentsFrom, from, max);
+    }
+
+    // reads on through the segments until max changes are found; the ring
+    // has the changes that are not on disk
+    private List<CustomerChange> readSegments(Map<Long, Path> segmentsFrom, long from, int max)
+            throws DaoException {
+        var changes = new ArrayList<CustomerChange>();
+        long next = from;
+        for (var entry : segmentsFrom.entrySet()) {
+            if (changes.size() >= max) {
+                break;
+            }
+            List<CustomerChange> read;
+            try {
+                read = readSegment(entry.getValue(), next, max - changes.size());
+            } catch (IOException e) {
+                // most likely deleted meanwhile, as one of the oldest segments
+                throw new DaoException(e);
+            }
+            for (var change : read) {
+                if (change.sequence() != next) {
+                    throw new DaoException("the customer change log has no change " + next);
+                }
+                changes.add(change);
+                next++;
+            }
+        }
+        if (changes.isEmpty()) {
+            throw new DaoException("the customer change log has no change " + from);
+        }
+        return changes;
+    }
+
+    // up to max changes of one segment, from the given sequence on
+    private static List<CustomerChange> readSegment(Path path, long from, int max) throws IOException {
+        var changes = new ArrayList<CustomerChange>();
+        try (var in = new CsvReader(path)) {
+            while (changes.size() < max && in.next()) {
+                var change = parseRecord(in);
+                if (change == null) {
+                    // the log resumed with this sequence in the next segment
+                    log.warn("skipping the malformed customer change at line {} of {}",
+                            in.getLineNumber(), path);
+                    break;
+                }
+                if (change.sequence() >= from) {
+                    changes.add(change);
+                }
+            }
+        }
+        return changes;
+    }
+
+    // null for a row that is not a whole change
+    private static CustomerChange parseRecord(CsvReader in) {
+        if (in.hasUnterminatedQuote()) {
+            return null;
+        }
+        try {
+            var change = fromRecord(in, Long.parseLong(in.getString(0)));
+            int fields = change.type() == Type.UPDATE ? 12 : 8;
+            return in.getFieldCount() == fields ? change : null;
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static CustomerChange fromRecord(CsvReader in, long sequence) {
+        long timestamp = Long.parseLong(in.getString(1));
+        var type = Type.valueOf(in.getString(2));
+        int id = in.getInt(3);
+        Customer before = type == Type.CREATE ? null : customer(in, 4, id);
+        Customer after = switch (type) {
+            case CREATE -> customer(in, 4, id);
+            case UPDATE -> customer(in, 8, id);
+            case DELETE -> null;
+        };
+        return new CustomerChange(sequence, timestamp, type, id, before, after);
+    }
+
+    private static Customer customer(CsvReader in, int field, int id) {
+        return new Customer(id, in.getString(field), in.getString(field + 1),
+                in.getString(field + 2), in.getString(field + 3));
+    }
+
+    /**
+     * Like {@link #read(long, int)}, but waits up to the timeout for a
+     * change when there is none yet.
+     */
+    public List<CustomerChange> poll(long afterSequence, int max, long timeout, TimeUnit unit)
+            throws DaoException, InterruptedException {
+        synchronized (this) {
+            long deadline = System.nanoTime() + unit.toNanos(timeout);
+            while (lastSequence == afterSequence && !closed) {
+                long left = deadline - System.nanoTime();
+                if (left <= 0) {
+                    return List.of();
+                }
+                TimeUnit.NANOSECONDS.timedWait(this, left);
+            }
+        }
+        return read(afterSequence, max);
+    }
+
+    /**
+     * Hands the changes after the given sequence to the consumer, in order,
+     * on a thread of the subscription's own, until the subscription or the
+     * feed is closed. A consumer that throws, or that falls behind the
+     * oldest change available, ends the subscription; it can resume with a
+     * new one from {@link Subscription#getSequence()}.
+     */
+    public Subscription subscribe(long afterSequence, Consumer<CustomerChange> consumer) {
+        var subscription = new Subscription(afterSequence);
+        var thread = new Thread(() -> subscription.run(consumer), "customer-change-subscription");
+        thread.setDaemon(true);
+        thread.start();
+        return subscription;
+    }
+
+    public final class Subscription implements AutoCloseable {
+        private volatile long sequence;
+        private volatile boolean cancelled;
+
+        private Subscription(long afterSequence) {
+            this.sequence = afterSequence;
+        }
+
+        // the last change handed to the consumer
+        public long getSequence() {
+            return sequence;
+        }
+
+        private void run(Consumer<CustomerChange> consumer) {
+            while (!cancelled && !closed) {
+                try {
+                    for (var change : poll(sequence, SUBSCRIPTION_BATCH, 1, TimeUnit.SECONDS)) {
+                        if (cancelled) {
+                            return;
+                        }
+                        consumer.accept(change);
+                        sequence = change.sequence();
+                    }
+                } catch (InterruptedException e) {
+                    return;
+                } catch (DaoException | RuntimeException e) {
+                    log.warn("customer change subscription ended after sequence {}", sequence, e);
+                    return;
+                }
+            }
+        }
+
+        // stops the delivery after the current change, or within a second when idle
+        @Override
+        public void close() {
+            cancelled = true;
+        }
+    }
+
+    // Lifecycle
+
+    // wakes up the subscriptions, which end, and closes the segment log;
+    // changes can still be read
+    @Override
+    public synchronized void close() throws DaoException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        notifyAll();
+        if (segment != null) {
+            try {
+                segment.close();
+            } catch (IOException e) {
+                throw new DaoException(e);
+            }
+        }
+    }
+}
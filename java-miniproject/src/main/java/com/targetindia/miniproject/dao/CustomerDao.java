@@ -2,9 +2,13 @@ package com.targetindia.miniproject.dao;
 
 import com.targetindia.miniproject.model.Customer;
 
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.PriorityQueue;
+import java.util.stream.Stream;
 
-public interface CustomerDao {
+public interface CustomerDao extends AutoCloseable {
     // this is a standard interface to provide CRUD and Query operations on Customer object
 
     // CRUD
@@ -17,6 +21,32 @@ public interface CustomerDao {
 
     public Customer deleteById(int id) throws DaoException;
 
+    // Batch operations
+    // the defaults simply loop over the single-entity methods; implementations
+    // override them to write once per batch instead of once per customer
+
+    public default List<Customer> saveAll(List<Customer> customers) throws DaoException {
+        var saved = new ArrayList<Customer>(customers.size());
+        for (var customer : customers) {
+            saved.add(save(customer));
+        }
+        return saved;
+    }
+
+    public default void updateAll(List<Customer> customers) throws DaoException {
+        for (var customer : customers) {
+            update(customer);
+        }
+    }
+
+    public default List<Customer> deleteAllById(List<Integer> ids) throws DaoException {
+        var deleted = new ArrayList<Customer>(ids.size());
+        for (var id : ids) {
+            deleted.add(deleteById(id));
+        }
+        return deleted;
+    }
+
     // Queries
 
     public List<Customer> getAll() throws DaoException;
@@ -26,4 +56,65 @@ public interface CustomerDao {
     public Customer getByPhone(String phone) throws DaoException;
 
     public List<Customer> getByCity(String city) throws DaoException;
+
+    // Bounded-memory queries
+
+    // returns up to limit customers with an id greater than afterId, in id order;
+    // pass 0 for the first page and the id of the last customer for the next one
+    public default List<Customer> getPage(int afterId, int limit) throws DaoException {
+        // keep only the limit smallest ids seen so far, largest on top
+        var page = new PriorityQueue<Customer>(Comparator.comparing(Customer::getId).reversed());
+        try (var customers = streamAll()) {
+            customers.filter(c -> c.getId() > afterId)
+                    .forEach(c -> {
+                        page.add(c);
+                        if (page.size() > limit) {
+                            page.poll();
+                        }
+                    });
+        }
+        return page.stream()
+                .sorted(Comparator.comparing(Customer::getId))
+                .toList();
+    }
+
+    // the stream may hold a file or a database cursor open, so
+    // it must be closed, preferably with try-with-resources
+    public default Stream<Customer> streamAll() throws DaoException {
+        return getAll().stream();
+    }
+
+    // Search
+    // the defaults scan every customer; SearchIndexCustomerDao answers the same
+    // queries from an index. See CustomerSearch for the matching rules.
+
+    // customers with a name word starting with each word of the prefix
+    public default List<Customer> searchByNamePrefix(String prefix, int limit) throws DaoException {
+        try (var customers = streamAll()) {
+            return CustomerSearch.scanByNamePrefix(customers, prefix, limit);
+        }
+    }
+
+    // customers whose email starts with the prefix, ignoring case
+    public default List<Customer> searchByEmailPrefix(String prefix, int limit) throws DaoException {
+        try (var customers = streamAll()) {
+            return CustomerSearch.scanByEmailPrefix(customers, prefix, limit);
+        }
+    }
+
+    // customers with a name word close to each word of the name, allowing for typos
+    public default List<Customer> searchByName(String name, int limit) throws DaoException {
+        try (var customers = streamAll()) {
+            return CustomerSearch.scanByName(customers, name, limit);
+        }
+    }
+
+    // Lifecycle
+
+    // writes whatever is still pending and releases files, threads and
+    // connections; the dao must not be used afterwards. Decorators close the
+    // dao they wrap.
+    @Override
+    public default void close() throws DaoException {
+    }
 }
@@ -0,0 +1,20 @@
+package com.targetindia.miniproject.dao;
+
+import java.util.Map;
+
+/**
+ * JMX view of a {@link MetricsCustomerDao}; the operations have an
+ * {@link OperationMetricsMXBean} each.
+ */
+public interface CustomerDaoMetricsMXBean {
+
+    long getCalls();
+
+    long getErrors();
+
+    // by the type of the innermost cause
+    Map<String, Long> getErrorsByType();
+
+    // -1 if the dao does not count them
+    long getBytesWritten();
+}
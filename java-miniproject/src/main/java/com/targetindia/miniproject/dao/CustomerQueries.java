@@ -0,0 +1,27 @@
+package com.targetindia.miniproject.dao;
+
+import com.targetindia.miniproject.model.Customer;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read-only analytic queries over a set of customers, answered by scanning
+ * columns instead of looking customers up one by one like {@link CustomerDao}.
+ * Results are in id order.
+ */
+public interface CustomerQueries {
+
+    int size();
+
+    // number of customers per city, in order of first appearance of the city
+    Map<String, Integer> countByCity();
+
+    int countByCity(String city);
+
+    List<Customer> findByCity(String city);
+
+    List<Customer> findByEmailPrefix(String prefix);
+
+    List<Customer> findByPhonePrefix(String prefix);
+}
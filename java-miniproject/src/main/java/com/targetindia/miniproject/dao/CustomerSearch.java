@@ -0,0 +1,182 @@
+package com.targetindia.miniproject.dao;
+
+import com.targetindia.miniproject.model.Customer;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+import java.util.stream.Stream;
+
+/**
+ * The matching rules of the search queries of {@link CustomerDao}, shared by
+ * the scanning defaults and by {@link SearchIndexCustomerDao}, so that both
+ * return the same customers in the same order.
+ * <ul>
+ * <li>A name is split into lower-case words at anything that is not a
+ * letter or a digit. A name prefix query matches when each of its words is
+ * the prefix of a word of the name; results are ordered by the smallest
+ * word that starts with the longest query word, then by id.</li>
+ * <li>An email prefix query is compared case-insensitively with the whole
+ * email; results are ordered by email, then id.</li>
+ * <li>A typo-tolerant name query matches when each of its words is within
+ * {@link #maxTypos(String)} edits (insertions, deletions, substitutions or
+ * swaps of adjacent letters) of a word of the name; results are ordered by
+ * the total number of edits, then id.</li>
+ * </ul>
+ */
+final class CustomerSearch {
+    private CustomerSearch() {
+    }
+
+    static String normalize(String text) {
+        return text == null ? "" : text.trim().toLowerCase(Locale.ROOT);
+    }
+
+    static List<String> words(String text) {
+        var words = new ArrayList<String>();
+        for (String word : normalize(text).split("[^\\p{L}\\p{N}]+")) {
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+        return words;
+    }
+
+    // the query word that selects the fewest names
+    static String longest(List<String> words) {
+        String longest = words.get(0);
+        for (String word : words) {
+            if (word.length() > longest.length()) {
+                longest = word;
+            }
+        }
+        return longest;
+    }
+
+    // short words get fewer typos, or every short word would match
+    static int maxTypos(String word) {
+        return word.length() <= 2 ? 0 : word.length() <= 5 ? 1 : 2;
+    }
+
+    /**
+     * Edit distance, counting a swap of two adjacent letters as one edit
+     * (optimal string alignment distance).
+     *
+     * @return the distance, or max + 1 if it is more than max
+     */
+    static int distance(String a, String b, int max) {
+        if (Math.abs(a.length() - b.length()) > max) {
+            return max + 1;
+        }
+        int[] previous2 = new int[b.length() + 1];
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int d = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    d = Math.min(d, previous2[j - 2] + 1);
+                }
+                current[j] = d;
+                rowMin = Math.min(rowMin, d);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+            int[] recycled = previous2;
+            previous2 = previous;
+            previous = current;
+            current = recycled;
+        }
+        return Math.min(previous[b.length()], max + 1);
+    }
+
+    // the sort key of a name for a prefix query, or null if the name does not match
+    static String namePrefixKey(List<String> queryWords, String name) {
+        var nameWords = words(name);
+        for (String queryWord : queryWords) {
+            if (nameWords.stream().noneMatch(word -> word.startsWith(queryWord))) {
+                return null;
+            }
+        }
+        String longest = longest(queryWords);
+        return nameWords.stream()
+                .filter(word -> word.startsWith(longest))
+                .min(Comparator.naturalOrder())
+                .orElse(null);
+    }
+
+    // total number of edits, or -1 if the name does not match
+    static int fuzzyScore(List<String> queryWords, String name) {
+        var nameWords = words(name);
+        int score = 0;
+        for (String queryWord : queryWords) {
+            int max = maxTypos(queryWord);
+            int best = max + 1;
+            for (String word : nameWords) {
+                best = Math.min(best, distance(queryWord, word, max));
+            }
+            if (best > max) {
+                return -1;
+            }
+            score += best;
+        }
+        return score;
+    }
+
+    private record Hit<K>(K key, Customer customer) {
+    }
+
+    // the limit smallest hits, by key and then id
+    private static <K extends Comparable<K>> List<Customer> top(Stream<Hit<K>> hits, int limit) {
+        Comparator<Hit<K>> order = Comparator.<Hit<K>, K>comparing(Hit::key)
+                .thenComparing(hit -> hit.customer().getId());
+        var top = new PriorityQueue<Hit<K>>(order.reversed());
+        hits.forEach(hit -> {
+            top.add(hit);
+            if (top.size() > limit) {
+                top.poll();
+            }
+        });
+        return top.stream().sorted(order).map(Hit::customer).toList();
+    }
+
+    static List<Customer> scanByNamePrefix(Stream<Customer> customers, String prefix, int limit) {
+        var queryWords = words(prefix);
+        if (queryWords.isEmpty()) {
+            return List.of();
+        }
+        return top(customers
+                .map(c -> new Hit<>(namePrefixKey(queryWords, c.getName()), c))
+                .filter(hit -> hit.key() != null), limit);
+    }
+
+    static List<Customer> scanByEmailPrefix(Stream<Customer> customers, String prefix, int limit) {
+        String normalized = normalize(prefix);
+        if (normalized.isEmpty()) {
+            return List.of();
+        }
+        return top(customers
+                .filter(c -> c.getEmail() != null)
+                .map(c -> new Hit<>(normalize(c.getEmail()), c))
+                .filter(hit -> hit.key().startsWith(normalized)), limit);
+    }
+
+    static List<Customer> scanByName(Stream<Customer> customers, String name, int limit) {
+        var queryWords = words(name);
+        if (queryWords.isEmpty()) {
+            return List.of();
+        }
+        return top(customers
+                .map(c -> new Hit<>(fuzzyScore(queryWords, c.getName()), c))
+                .filter(hit -> hit.key() >= 0), limit);
+    }
+}
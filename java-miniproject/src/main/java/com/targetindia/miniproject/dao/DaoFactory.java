@@ -1,27 +1,243 @@
 package com.targetindia.miniproject.dao;
 
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.file.Path;
 import java.util.ResourceBundle;
 
+/**
+ * Provides the {@link CustomerDao} configured in dao-config.properties,
+ * wrapped in the decorators that are enabled there.
+ * <p>
+ * {@link #getCustomerDao()} hands every caller the same instance, so a
+ * file-backed store is loaded once per process and all callers see the
+ * same data. It is closed, writing whatever is still pending, by
+ * {@link #closeCustomerDao()} or else by a shutdown hook.
+ * <p>
+ * With the change feed enabled, the changes made through all the daos of
+ * this factory are published to one {@link CustomerChangeFeed}, see
+ * {@link #getCustomerChangeFeed()}.
+ */
+@Slf4j
 public final class DaoFactory {
 
     private DaoFactory() {
     }
 
+    private static final ResourceBundle CONFIG;
     private static final String CUSTOMER_DAO_IMPL;
+    private static final boolean CUSTOMER_CACHE_ENABLED;
+    private static final long CUSTOMER_CACHE_MAX_SIZE;
+    private static final boolean CUSTOMER_UNIQUE_KEYS_ENABLED;
+    private static final double CUSTOMER_UNIQUE_KEYS_FALSE_POSITIVE_RATE;
+    private static final boolean CUSTOMER_SEARCH_INDEX_ENABLED;
+    private static final boolean CUSTOMER_CHANGE_FEED_ENABLED;
+    private static final int CUSTOMER_CHANGE_FEED_CAPACITY;
+    private static final String CUSTOMER_CHANGE_FEED_DIR;
+    private static final long CUSTOMER_CHANGE_FEED_SEGMENT_BYTES;
+    private static final int CUSTOMER_CHANGE_FEED_MAX_SEGMENTS;
+    private static final boolean CUSTOMER_METRICS_ENABLED;
+    private static final long CUSTOMER_METRICS_REPORT_INTERVAL_SECONDS;
+    private static final int CUSTOMER_DAO_MAX_CONCURRENCY;
+    private static final boolean CUSTOMER_DAO_WARM_UP;
+
+    // looked up on first use; every dao is created through it
+    private static MethodHandle customerDaoConstructor;
+
+    // shared by the callers of getCustomerDao, until it is closed
+    private static CustomerDao customerDao;
+    private static CustomerChangeFeed customerChangeFeed;
+    private static boolean shutdownHookAdded;
 
     static {
         // read the dao-config.properties
         ResourceBundle rb = ResourceBundle.getBundle("dao-config");
+        CONFIG = rb;
         // store the name of the implementation clas in a static variable
         CUSTOMER_DAO_IMPL = rb.getString("com.targetindia.miniproject.dao.customer-dao.impl");
+        CUSTOMER_CACHE_ENABLED = Boolean.parseBoolean(
+                getString(rb, "com.targetindia.miniproject.dao.customer-dao.cache.enabled", "false"));
+        CUSTOMER_CACHE_MAX_SIZE = Long.parseLong(
+                getString(rb, "com.targetindia.miniproject.dao.customer-dao.cache.max-size", "10000"));
+        CUSTOMER_UNIQUE_KEYS_ENABLED = Boolean.parseBoolean(
+                getString(rb, "com.targetindia.miniproject.dao.customer-dao.unique-keys.enabled", "false"));
+        CUSTOMER_UNIQUE_KEYS_FALSE_POSITIVE_RATE = Double.parseDouble(
+                getString(rb, "com.targetindia.miniproject.dao.customer-dao.unique-keys.false-positive-rate", "0.01"));
+        CUSTOMER_SEARCH_INDEX_ENABLED = Boolean.parseBoolean(
+                getString(rb, "com.targetindia.miniproject.dao.customer-dao.search-index.enabled", "false"));
+        CUSTOMER_CHANGE_FEED_ENABLED = Boolean.parseBoolean(
+                getString(rb, "com.targetindia.miniproject.dao.customer-dao.change-feed.enabled", "false"));
+        CUSTOMER_CHANGE_FEED_CAPACITY = Integer.parseInt(
+                getString(rb, "com.targetindia.miniproject.dao.customer-dao.change-feed.capacity", "65536"));
+        CUSTOMER_CHANGE_FEED_DIR =
+                getString(rb, "com.targetindia.miniproject.dao.customer-dao.change-feed.dir", "");
+        CUSTOMER_CHANGE_FEED_SEGMENT_BYTES = Long.parseLong(
+                getString(rb, "com.targetindia.miniproject.dao.customer-dao.change-feed.segment-bytes", "67108864"));
+        CUSTOMER_CHANGE_FEED_MAX_SEGMENTS = Integer.parseInt(
+                getString(rb, "com.targetindia.miniproject.dao.customer-dao.change-feed.max-segments", "16"));
+        CUSTOMER_METRICS_ENABLED = Boolean.parseBoolean(
+                getString(rb, "com.targetindia.miniproject.dao.customer-dao.metrics.enabled", "false"));
+        CUSTOMER_METRICS_REPORT_INTERVAL_SECONDS = Long.parseLong(
+                getString(rb, "com.targetindia.miniproject.dao.customer-dao.metrics.report-interval-seconds", "60"));
+        CUSTOMER_DAO_MAX_CONCURRENCY = Integer.parseInt(
+                getString(rb, "com.targetindia.miniproject.dao.customer-dao.max-concurrency", "1"));
+        CUSTOMER_DAO_WARM_UP = Boolean.parseBoolean(
+                getString(rb, "com.targetindia.miniproject.dao.customer-dao.warm-up", "false"));
+    }
+
+    private static String getString(ResourceBundle rb, String key, String defaultValue) {
+        return rb.containsKey(key) ? rb.getString(key).trim() : defaultValue;
+    }
+
+    // optional settings of individual dao implementations
+    static String getProperty(String key, String defaultValue) {
+        return getString(CONFIG, key, defaultValue);
+    }
+
+    // how many calls the configured CustomerDao may serve at the same time
+    public static int getCustomerDaoMaxConcurrency() {
+        return CUSTOMER_DAO_MAX_CONCURRENCY;
+    }
+
+    // the shared dao, created on first use
+    public static synchronized CustomerDao getCustomerDao() throws DaoException {
+        if (customerDao == null) {
+            var dao = newCustomerDao();
+            if (CUSTOMER_DAO_WARM_UP) {
+                try {
+                    warmUp(dao);
+                } catch (DaoException | RuntimeException e) {
+                    closeAfterFailure(dao, e);
+                    throw e;
+                }
+            }
+            addShutdownHook();
+            customerDao = dao;
+        }
+        return customerDao;
+    }
+
+    // the feed of the changes made through the daos of this factory, created
+    // on first use; null unless change-feed.enabled is set
+    public static synchronized CustomerChangeFeed getCustomerChangeFeed() throws DaoException {
+        if (!CUSTOMER_CHANGE_FEED_ENABLED) {
+            return null;
+        }
+        if (customerChangeFeed == null) {
+            customerChangeFeed = new CustomerChangeFeed(CUSTOMER_CHANGE_FEED_CAPACITY,
+                    CUSTOMER_CHANGE_FEED_DIR.isEmpty() ? null : Path.of(CUSTOMER_CHANGE_FEED_DIR),
+                    CUSTOMER_CHANGE_FEED_SEGMENT_BYTES, CUSTOMER_CHANGE_FEED_MAX_SEGMENTS);
+            addShutdownHook();
+        }
+        return customerChangeFeed;
     }
-    public static CustomerDao getCustomerDao() throws DaoException {
+
+    private static void addShutdownHook() {
+        if (!shutdownHookAdded) {
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    closeCustomerDao();
+                } catch (DaoException e) {
+                    log.warn("error while closing the customer dao on shutdown", e);
+                }
+            }, "customer-dao-shutdown"));
+            shutdownHookAdded = true;
+        }
+    }
+
+    // closes the shared dao, and then the change feed; the next
+    // getCustomerDao and getCustomerChangeFeed create new ones
+    public static synchronized void closeCustomerDao() throws DaoException {
         try {
-            return (CustomerDao) Class.forName(CUSTOMER_DAO_IMPL)
-                    .getDeclaredConstructor()
-                    .newInstance();
-        } catch (Exception e) {
+            if (customerDao != null) {
+                var dao = customerDao;
+                customerDao = null;
+                dao.close();
+            }
+        } finally {
+            if (customerChangeFeed != null) {
+                var feed = customerChangeFeed;
+                customerChangeFeed = null;
+                feed.close();
+            }
+        }
+    }
+
+    // a dao of its own, configured like the shared one; the caller must close it
+    public static CustomerDao newCustomerDao() throws DaoException {
+        CustomerDao dao = newCustomerDaoImpl();
+        try {
+            var storage = dao instanceof StorageStatistics statistics ? statistics : null;
+            if (CUSTOMER_CACHE_ENABLED) {
+                dao = new CachingCustomerDao(dao, CUSTOMER_CACHE_MAX_SIZE);
+            }
+            if (CUSTOMER_UNIQUE_KEYS_ENABLED) {
+                dao = new UniqueKeysCustomerDao(dao, CUSTOMER_UNIQUE_KEYS_FALSE_POSITIVE_RATE);
+            }
+            if (CUSTOMER_SEARCH_INDEX_ENABLED) {
+                dao = new SearchIndexCustomerDao(dao);
+            }
+            if (CUSTOMER_CHANGE_FEED_ENABLED) {
+                dao = new ChangeFeedCustomerDao(dao, getCustomerChangeFeed());
+            }
+            if (CUSTOMER_METRICS_ENABLED) {
+                // outermost, so that it times what the callers see, cache hits included
+                dao = new MetricsCustomerDao(dao, storage, CUSTOMER_METRICS_REPORT_INTERVAL_SECONDS);
+            }
+            return dao;
+        } catch (DaoException | RuntimeException e) {
+            closeAfterFailure(dao, e);
+            throw e;
+        }
+    }
+
+    // a failure to close is added to the failure that caused it, not thrown instead
+    private static void closeAfterFailure(CustomerDao dao, Exception failure) {
+        try {
+            dao.close();
+        } catch (DaoException | RuntimeException e) {
+            failure.addSuppressed(e);
+        }
+    }
+
+    private static CustomerDao newCustomerDaoImpl() throws DaoException {
+        try {
+            return (CustomerDao) customerDaoConstructor().invokeExact();
+        } catch (DaoException | RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new DaoException(e);
+        }
+    }
+
+    private static synchronized MethodHandle customerDaoConstructor() throws DaoException {
+        if (customerDaoConstructor == null) {
+            try {
+                customerDaoConstructor = MethodHandles.publicLookup()
+                        .findConstructor(Class.forName(CUSTOMER_DAO_IMPL), MethodType.methodType(void.class))
+                        .asType(MethodType.methodType(CustomerDao.class));
+            } catch (ReflectiveOperationException e) {
+                throw new DaoException(e);
+            }
+        }
+        return customerDaoConstructor;
+    }
+
+    // reads every customer once, so that what the dao loads lazily (pages of
+    // a mapped file, the second-level cache of Jpa) is there for the first request
+    private static void warmUp(CustomerDao dao) throws DaoException {
+        long start = System.nanoTime();
+        long count;
+        try (var customers = dao.streamAll()) {
+            // unlike count(), sum() visits every customer
+            count = customers.mapToLong(customer -> 1).sum();
+        } catch (RuntimeException e) {
             throw new DaoException(e);
         }
+        log.info("warmed up the customer dao with {} customers in {} ms",
+                count, (System.nanoTime() - start) / 1_000_000);
     }
 }
@@ -0,0 +1,31 @@
+package com.targetindia.miniproject.dao;
+
+/**
+ * Settings of the group-commit durability mode of the file-backed daos.
+ * <p>
+ * In this mode mutations are handed to a single flusher thread that writes
+ * (and fsyncs) them in batches of up to {@code maxBatchSize}, waiting at most
+ * {@code maxDelayMillis} for a batch to fill up. When
+ * {@code waitForDurability} is set, every mutating call returns only after
+ * its batch is on disk; otherwise it returns right away and write errors are
+ * only logged.
+ * <p>
+ * A change is made in memory before its batch is written, and a failed
+ * batch does not undo it: the call fails, but the change stays visible to
+ * reads, and the CSV dao writes it with the next snapshot that succeeds.
+ */
+public record GroupCommitConfig(int maxBatchSize, long maxDelayMillis, boolean waitForDurability) {
+
+    private static final String PREFIX = "com.targetindia.miniproject.dao.customer-dao.";
+
+    // null unless dao-config.properties selects the group durability mode
+    static GroupCommitConfig fromDaoConfig() {
+        if (!"group".equals(DaoFactory.getProperty(PREFIX + "durability", "sync"))) {
+            return null;
+        }
+        return new GroupCommitConfig(
+                Integer.parseInt(DaoFactory.getProperty(PREFIX + "group-commit.max-batch-size", "256")),
+                Long.parseLong(DaoFactory.getProperty(PREFIX + "group-commit.max-delay-ms", "2")),
+                Boolean.parseBoolean(DaoFactory.getProperty(PREFIX + "group-commit.wait", "true")));
+    }
+}
@@ -0,0 +1,164 @@
+package com.targetindia.miniproject.dao;
+
+import com.targetindia.miniproject.model.Customer;
+import com.targetindia.miniproject.utils.IntHashMap;
+import com.targetindia.miniproject.utils.StringDictionary;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class HashIndexCustomerDao implements CustomerDao {
+
+    // primary index; insertion order is the order getAll() returns
+    private IntHashMap<Customer> customersById = new IntHashMap<>();
+
+    // secondary indexes; email and phone are unique, city is multi-valued
+    private Map<String, Customer> customersByEmail = new HashMap<>();
+    private Map<String, Customer> customersByPhone = new HashMap<>();
+    // cities are dictionary encoded: the stored customers share one instance of
+    // each city, and the city's code is its position in customersByCity
+    private StringDictionary cities = new StringDictionary();
+    private List<IntHashMap<Customer>> customersByCity = new ArrayList<>();
+
+    private int maxId = 0;
+
+    public HashIndexCustomerDao() {
+        add(new Customer(1, "Vinod Kumar", "Bangalore", "vinod@vinod.co", "9731424784"));
+        add(new Customer(2, "John Doe", "Dallas", "jd@xmpl.com", "5567424784"));
+    }
+
+    // the stored objects are private copies, so that a caller modifying a
+    // customer it got from this dao cannot leave the indexes pointing at stale keys
+    private static Customer copyOf(Customer customer) {
+        return new Customer(
+                customer.getId(),
+                customer.getName(),
+                customer.getCity(),
+                customer.getEmail(),
+                customer.getPhone());
+    }
+
+    private void checkUnique(Customer customer) throws DaoException {
+        var byEmail = customer.getEmail() == null ? null : customersByEmail.get(customer.getEmail());
+        if (byEmail != null && !byEmail.getId().equals(customer.getId())) {
+            throw new DaoException("email " + customer.getEmail() + " already exists for id " + byEmail.getId());
+        }
+        var byPhone = customer.getPhone() == null ? null : customersByPhone.get(customer.getPhone());
+        if (byPhone != null && !byPhone.getId().equals(customer.getId())) {
+            throw new DaoException("phone " + customer.getPhone() + " already exists for id " + byPhone.getId());
+        }
+    }
+
+    private void add(Customer customer) {
+        customersById.put(customer.getId(), customer);
+        addToSecondaryIndexes(customer);
+        maxId = Math.max(maxId, customer.getId());
+    }
+
+    private void addToSecondaryIndexes(Customer customer) {
+        if (customer.getEmail() != null) {
+            customersByEmail.put(customer.getEmail(), customer);
+        }
+        if (customer.getPhone() != null) {
+            customersByPhone.put(customer.getPhone(), customer);
+        }
+        if (customer.getCity() != null) {
+            int code = cities.encode(customer.getCity());
+            customer.setCity(cities.decode(code));
+            while (customersByCity.size() <= code) {
+                customersByCity.add(new IntHashMap<>());
+            }
+            customersByCity.get(code).put(customer.getId(), customer);
+        }
+    }
+
+    private void removeFromSecondaryIndexes(Customer customer) {
+        if (customer.getEmail() != null) {
+            customersByEmail.remove(customer.getEmail());
+        }
+        if (customer.getPhone() != null) {
+            customersByPhone.remove(customer.getPhone());
+        }
+        int code = cities.find(customer.getCity());
+        if (code >= 0) {
+            customersByCity.get(code).remove(customer.getId());
+        }
+    }
+
+    @Override
+    public Customer save(Customer customer) throws DaoException {
+        var saved = copyOf(customer);
+        saved.setId(maxId + 1);
+        checkUnique(saved);
+        add(saved);
+
+        customer.setId(saved.getId());
+        return customer;
+    }
+
+    @Override
+    public Customer getById(int id) throws DaoException {
+        var customer = customersById.get(id);
+        return customer == null ? null : copyOf(customer);
+    }
+
+    @Override
+    public void update(Customer customer) throws DaoException {
+        var existing = customersById.get(customer.getId());
+        if (existing == null) {
+            throw new DaoException("customer data not found for id " + customer.getId());
+        }
+        checkUnique(customer);
+
+        // replacing the value of an existing key keeps its position in the IntHashMap
+        var updated = copyOf(customer);
+        removeFromSecondaryIndexes(existing);
+        customersById.put(updated.getId(), updated);
+        addToSecondaryIndexes(updated);
+    }
+
+    @Override
+    public Customer deleteById(int id) throws DaoException {
+        var customer = customersById.get(id);
+        if (customer == null) {
+            throw new DaoException("No customer found for id " + id);
+        }
+        customersById.remove(id);
+        removeFromSecondaryIndexes(customer);
+        return customer;
+    }
+
+    @Override
+    public List<Customer> getAll() throws DaoException {
+        return customersById.values()
+                .stream()
+                .map(HashIndexCustomerDao::copyOf)
+                .toList();
+    }
+
+    @Override
+    public Customer getByEmail(String email) throws DaoException {
+        var customer = customersByEmail.get(email);
+        return customer == null ? null : copyOf(customer);
+    }
+
+    @Override
+    public Customer getByPhone(String phone) throws DaoException {
+        var customer = customersByPhone.get(phone);
+        return customer == null ? null : copyOf(customer);
+    }
+
+    @Override
+    public List<Customer> getByCity(String city) throws DaoException {
+        int code = cities.find(city);
+        if (code < 0) {
+            return List.of();
+        }
+        return customersByCity.get(code).values()
+                .stream()
+                .map(HashIndexCustomerDao::copyOf)
+                .toList();
+    }
+}
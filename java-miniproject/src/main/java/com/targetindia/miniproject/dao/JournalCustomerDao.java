@@ -0,0 +1,528 @@
+package com.targetindia.miniproject.dao;
+
+import com.targetindia.miniproject.model.Customer;
+import com.targetindia.miniproject.utils.CsvReader;
+import com.targetindia.miniproject.utils.GroupCommitter;
+import com.targetindia.miniproject.utils.IdGenerator;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Append-only variant of the CSV store. Every mutation appends a single
+ * record to the journal instead of rewriting the whole file:
+ * <pre>
+ * I,id,name,city,email,phone   (insert)
+ * U,id,name,city,email,phone   (update)
+ * D,id                         (delete / tombstone)
+ * </pre>
+ * Fields are quoted like in the CSV store, see {@link CsvReader#quote(String)}.
+ * The journal is replayed on startup; a journal that cannot be read fails
+ * the construction, since starting with part of the customers would lose
+ * the rest with the next compaction. Only the last record may be torn, by
+ * a crash while it was appended: it is dropped, and the journal rewritten
+ * without it. When the share of superseded records
+ * crosses {@link #COMPACTION_THRESHOLD}, a background thread writes the live
+ * customers into a fresh journal and swaps it in with an atomic rename.
+ * <p>
+ * With a {@link GroupCommitConfig} the records are not written by the calling
+ * thread, but queued for a flusher thread that appends and fsyncs them in
+ * batches; see {@link GroupCommitter}.
+ */
+@Slf4j
+public class JournalCustomerDao implements CustomerDao, StorageStatistics {
+
+    private static final String DEFAULT_FILENAME = "customers.journal";
+    private static final double COMPACTION_THRESHOLD = 0.5;
+    private static final int COMPACTION_MIN_RECORDS = 1000;
+
+    private final Path journalPath;
+    private final Map<Integer, Customer> customerMap = new LinkedHashMap<>();
+
+    private FileOutputStream journalFile;
+    private Writer journal;
+    private long journalRecords;
+    private final AtomicLong bytesWritten = new AtomicLong();
+
+    // null in the default, synchronous mode
+    private final GroupCommitter<List<String>> committer;
+    private final boolean waitForDurability;
+
+    // records appended while a compaction is writing the snapshot
+    private List<String> compactionTail;
+
+    private final ExecutorService compactor = Executors.newSingleThreadExecutor(r -> {
+        var thread = new Thread(r, "customer-journal-compactor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public JournalCustomerDao() throws DaoException {
+        this(DEFAULT_FILENAME, GroupCommitConfig.fromDaoConfig());
+    }
+
+    public JournalCustomerDao(String filename) throws DaoException {
+        this(filename, null);
+    }
+
+    public JournalCustomerDao(String filename, GroupCommitConfig groupCommit) throws DaoException {
+        this.journalPath = Path.of(filename);
+        try {
+            replay();
+            openJournal();
+        } catch (IOException e) {
+            throw new DaoException(e);
+        }
+        if (groupCommit == null) {
+            committer = null;
+            waitForDurability = true;
+        } else {
+            committer = new GroupCommitter<>("customer-journal-flusher", this::writeBatch,
+                    groupCommit.maxBatchSize(), groupCommit.maxDelayMillis());
+            waitForDurability = groupCommit.waitForDurability();
+        }
+    }
+
+    private void openJournal() throws IOException {
+        journalFile = new FileOutputStream(journalPath.toFile(), true);
+        journal = new BufferedWriter(new OutputStreamWriter(journalFile, StandardCharsets.UTF_8));
+    }
+
+    // one parsed journal record; customer is null for a delete
+    private record Entry(String type, int id, Customer customer) {
+    }
+
+    private void replay() throws IOException, DaoException {
+        if (!Files.exists(journalPath)) {
+            return;
+        }
+        Entry pending = null;
+        long pendingLine = 0;
+        try (var in = new CsvReader(journalPath)) {
+            while (in.next()) {
+                // a record is applied once the next one shows it was not the last
+                if (pending != null) {
+                    apply(pending);
+                } else if (journalRecords > 0) {
+                    throw new DaoException("malformed record at line " + pendingLine + " of " + journalPath);
+                }
+                pending = parseRecord(in);
+                pendingLine = in.getLineNumber();
+                journalRecords++;
+            }
+        }
+        // every record ends with a line break, so a last one without it is torn
+        if (pending != null && endsWithLineBreak()) {
+            apply(pending);
+        } else if (journalRecords > 0) {
+            log.warn("dropping the torn last record at line {} of {}", pendingLine, journalPath);
+            journalRecords--;
+            rewriteJournal();
+        }
+    }
+
+    private void apply(Entry entry) {
+        if (entry.customer() == null) {
+            customerMap.remove(entry.id());
+        } else {
+            customerMap.put(entry.id(), entry.customer());
+        }
+    }
+
+    // null if the record is malformed
+    private static Entry parseRecord(CsvReader in) {
+        if (in.hasUnterminatedQuote()) {
+            return null;
+        }
+        try {
+            String type = in.getString(0);
+            int id = in.getInt(1);
+            return switch (type) {
+                case "I", "U" -> in.getFieldCount() != 6 ? null : new Entry(type, id,
+                        new Customer(id, in.getString(2), in.getString(3), in.getString(4), in.getString(5)));
+                case "D" -> in.getFieldCount() != 2 ? null : new Entry(type, id, null);
+                default -> null;
+            };
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private boolean endsWithLineBreak() throws IOException {
+        try (var channel = FileChannel.open(journalPath, StandardOpenOption.READ)) {
+            long size = channel.size();
+            var last = ByteBuffer.allocate(1);
+            return size > 0 && channel.read(last, size - 1) == 1 && last.get(0) == '\n';
+        }
+    }
+
+    // replaces the journal by the customers replayed from it, at startup
+    private void rewriteJournal() throws IOException {
+        var tempPath = journalPath.resolveSibling(journalPath.getFileName() + ".compact");
+        try (var file = new FileOutputStream(tempPath.toFile());
+             var out = new BufferedWriter(new OutputStreamWriter(file, StandardCharsets.UTF_8))) {
+            for (var customer : customerMap.values()) {
+                out.write(toRecord("I", customer));
+                out.write(System.lineSeparator());
+            }
+            out.flush();
+            file.getChannel().force(false);
+        }
+        Files.move(tempPath, journalPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        journalRecords = customerMap.size();
+    }
+
+    private static String toRecord(String type, Customer customer) {
+        return type
+                + "," + customer.getId()
+                + "," + CsvReader.quote(customer.getName())
+                + "," + CsvReader.quote(customer.getCity())
+                + "," + CsvReader.quote(customer.getEmail())
+                + "," + CsvReader.quote(customer.getPhone());
+    }
+
+    private void append(String record) throws IOException {
+        append(List.of(record));
+    }
+
+    @Override
+    public long getBytesWritten() {
+        return bytesWritten.get();
+    }
+
+    // a batch of records costs a single flush
+    private void append(List<String> records) throws IOException {
+        long start = journalFile.getChannel().position();
+        for (var record : records) {
+            journal.write(record);
+            journal.write(System.lineSeparator());
+        }
+        journal.flush();
+        bytesWritten.addAndGet(journalFile.getChannel().position() - start);
+        journalRecords += records.size();
+        if (compactionTail != null) {
+            compactionTail.addAll(records);
+        }
+    }
+
+    // runs on the flusher thread in group-commit mode
+    private void writeBatch(List<List<String>> batch) throws IOException {
+        FileChannel channel;
+        synchronized (this) {
+            append(batch.stream().flatMap(List::stream).toList());
+            channel = journalFile.getChannel();
+            compactIfNeeded();
+        }
+        // the fsync happens outside the lock, so readers are not held up by it
+        try {
+            channel.force(false);
+        } catch (ClosedChannelException e) {
+            // a compaction swapped the journal in the mean time; the records
+            // are part of the new journal, which was forced before the swap
+        }
+    }
+
+    // writes and fsyncs the records now, or queues them in group-commit mode; the caller
+    // must hold the lock, and wait for the returned future after releasing it
+    private CompletableFuture<Void> log(List<String> records) throws IOException {
+        if (committer == null) {
+            append(records);
+            // as durable as a group-commit batch, and as a CSV snapshot
+            journalFile.getChannel().force(false);
+            return CompletableFuture.completedFuture(null);
+        }
+        return committer.submit(records);
+    }
+
+    private void awaitDurable(CompletableFuture<Void> written) throws DaoException {
+        if (!waitForDurability) {
+            return;
+        }
+        try {
+            written.join();
+        } catch (CompletionException e) {
+            throw new DaoException(e.getCause());
+        }
+    }
+
+    // called once the record is both in the journal and applied to customerMap
+    private void compactIfNeeded() {
+        if (compactionTail == null
+                && journalRecords >= COMPACTION_MIN_RECORDS
+                && (journalRecords - customerMap.size()) >= COMPACTION_THRESHOLD * journalRecords) {
+            startCompaction();
+        }
+    }
+
+    private void startCompaction() {
+        var snapshot = customerMap.values()
+                .stream()
+                .map(customer -> toRecord("I", customer))
+                .toList();
+        compactionTail = new ArrayList<>();
+        compactor.submit(() -> compact(snapshot));
+    }
+
+    private void compact(List<String> snapshot) {
+        var tempPath = journalPath.resolveSibling(journalPath.getFileName() + ".compact");
+        try {
+            // the bulk of the work happens here, without holding the dao lock
+            try (var out = Files.newBufferedWriter(tempPath)) {
+                for (var record : snapshot) {
+                    out.write(record);
+                    out.newLine();
+                }
+            }
+
+            synchronized (this) {
+                try (var file = new FileOutputStream(tempPath.toFile(), true);
+                     var out = new BufferedWriter(new OutputStreamWriter(file, StandardCharsets.UTF_8))) {
+                    for (var record : compactionTail) {
+                        out.write(record);
+                        out.newLine();
+                    }
+                    out.flush();
+                    file.getChannel().force(false);
+                }
+                bytesWritten.addAndGet(Files.size(tempPath));
+                journal.close();
+                try {
+                    Files.move(tempPath, journalPath,
+                            StandardCopyOption.REPLACE_EXISTING,
+                            StandardCopyOption.ATOMIC_MOVE);
+                    journalRecords = snapshot.size() + compactionTail.size();
+                } finally {
+                    openJournal();
+                    compactionTail = null;
+                }
+            }
+            log.debug("compacted customer journal to {} records", journalRecords);
+        } catch (Exception e) {
+            log.warn("error while compacting the customer journal", e);
+            synchronized (this) {
+                compactionTail = null;
+            }
+            try {
+                Files.deleteIfExists(tempPath);
+            } catch (IOException ex) {
+                log.warn("error while removing {}", tempPath, ex);
+            }
+        }
+    }
+
+    @Override
+    public Customer save(Customer customer) throws DaoException {
+        CompletableFuture<Void> written;
+        synchronized (this) {
+            try {
+                customer.setId(IdGenerator.generate());
+                written = log(List.of(toRecord("I", customer)));
+                customerMap.put(customer.getId(), customer);
+                compactIfNeeded();
+            } catch (Exception e) {
+                throw new DaoException(e);
+            }
+        }
+        awaitDurable(written);
+        return customer;
+    }
+
+    @Override
+    public synchronized Customer getById(int id) throws DaoException {
+        return customerMap.get(id);
+    }
+
+    @Override
+    public void update(Customer customer) throws DaoException {
+        CompletableFuture<Void> written;
+        synchronized (this) {
+            if (!customerMap.containsKey(customer.getId())) {
+                throw new DaoException("customer data not found for id " + customer.getId());
+            }
+            try {
+                written = log(List.of(toRecord("U", customer)));
+                customerMap.put(customer.getId(), customer);
+                compactIfNeeded();
+            } catch (Exception e) {
+                throw new DaoException(e);
+            }
+        }
+        awaitDurable(written);
+    }
+
+    @Override
+    public Customer deleteById(int id) throws DaoException {
+        CompletableFuture<Void> written;
+        Customer customer;
+        synchronized (this) {
+            if (!customerMap.containsKey(id)) {
+                throw new DaoException("customer data not found for id " + id);
+            }
+            try {
+                written = log(List.of("D," + id));
+                customer = customerMap.remove(id);
+                compactIfNeeded();
+            } catch (Exception e) {
+                throw new DaoException(e);
+            }
+        }
+        awaitDurable(written);
+        return customer;
+    }
+
+    @Override
+    public List<Customer> saveAll(List<Customer> customers) throws DaoException {
+        if (customers.isEmpty()) {
+            return customers;
+        }
+        CompletableFuture<Void> written;
+        synchronized (this) {
+            try {
+                int id = IdGenerator.generate(customers.size());
+                var records = new ArrayList<String>(customers.size());
+                for (Customer customer : customers) {
+                    customer.setId(id++);
+                    records.add(toRecord("I", customer));
+                }
+                written = log(records);
+                for (Customer customer : customers) {
+                    customerMap.put(customer.getId(), customer);
+                }
+                compactIfNeeded();
+            } catch (Exception e) {
+                throw new DaoException(e);
+            }
+        }
+        awaitDurable(written);
+        return customers;
+    }
+
+    @Override
+    public void updateAll(List<Customer> customers) throws DaoException {
+        CompletableFuture<Void> written;
+        synchronized (this) {
+            for (Customer customer : customers) {
+                if (!customerMap.containsKey(customer.getId())) {
+                    throw new DaoException("customer data not found for id " + customer.getId());
+                }
+            }
+            try {
+                written = log(customers.stream()
+                        .map(customer -> toRecord("U", customer))
+                        .toList());
+                for (Customer customer : customers) {
+                    customerMap.put(customer.getId(), customer);
+                }
+                compactIfNeeded();
+            } catch (Exception e) {
+                throw new DaoException(e);
+            }
+        }
+        awaitDurable(written);
+    }
+
+    @Override
+    public List<Customer> deleteAllById(List<Integer> ids) throws DaoException {
+        CompletableFuture<Void> written;
+        var deleted = new ArrayList<Customer>(ids.size());
+        synchronized (this) {
+            for (int id : ids) {
+                if (!customerMap.containsKey(id)) {
+                    throw new DaoException("customer data not found for id " + id);
+                }
+            }
+            try {
+                written = log(ids.stream()
+                        .map(id -> "D," + id)
+                        .toList());
+                for (int id : ids) {
+                    deleted.add(customerMap.remove(id));
+                }
+                compactIfNeeded();
+            } catch (Exception e) {
+                throw new DaoException(e);
+            }
+        }
+        awaitDurable(written);
+        return deleted;
+    }
+
+    @Override
+    public synchronized List<Customer> getAll() throws DaoException {
+        return customerMap.values().stream().toList();
+    }
+
+    @Override
+    public synchronized Customer getByEmail(String email) throws DaoException {
+        return customerMap.values()
+                .stream()
+                .filter(customer -> customer.getEmail().equals(email))
+                .findFirst()
+                .orElse(null);
+    }
+
+    @Override
+    public synchronized Customer getByPhone(String phone) throws DaoException {
+        return customerMap.values()
+                .stream()
+                .filter(customer -> customer.getPhone().equals(phone))
+                .findFirst()
+                .orElse(null);
+    }
+
+    @Override
+    public synchronized List<Customer> getByCity(String city) throws DaoException {
+        return customerMap.values()
+                .stream()
+                .filter(customer -> customer.getCity().equals(city))
+                .toList();
+    }
+
+    // waits for a running compaction and for the queued records, then syncs
+    // and closes the journal
+    @Override
+    public void close() throws DaoException {
+        if (committer != null) {
+            committer.close();
+        }
+        compactor.shutdown();
+        try {
+            if (!compactor.awaitTermination(1, TimeUnit.MINUTES)) {
+                log.warn("gave up waiting for the customer journal compaction");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            try {
+                journal.flush();
+                journalFile.getChannel().force(false);
+                journal.close();
+            } catch (IOException e) {
+                throw new DaoException(e);
+            }
+        }
+    }
+}
@@ -2,15 +2,50 @@ package com.targetindia.miniproject.dao;
 
 import com.targetindia.miniproject.model.Customer;
 import com.targetindia.miniproject.utils.JpaUtil;
+import jakarta.persistence.EntityManagerFactory;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
 
 @Slf4j
 public class JpaCustomerDao implements CustomerDao {
+
+    // should match hibernate.jdbc.batch_size in persistence.xml
+    private static final int BATCH_SIZE = 50;
+
+    // rows fetched per round trip while streaming
+    private static final int FETCH_SIZE = 500;
+
+    // numbers the databases opened by JpaCustomerDao(String)
+    private static final AtomicInteger DATABASES = new AtomicInteger();
+
+    private final EntityManagerFactory emf;
+    // whether the factory was created for this dao, and is closed with it
+    private final boolean ownFactory;
+
+    public JpaCustomerDao() {
+        this.emf = JpaUtil.getEntityManagerFactory();
+        this.ownFactory = false;
+    }
+
+    // a dao on a database of its own, e.g. one shard of ShardedCustomerDao
+    public JpaCustomerDao(String jdbcUrl) {
+        this.emf = JpaUtil.createEntityManagerFactory(Map.of(
+                "jakarta.persistence.jdbc.url", jdbcUrl,
+                // the second-level cache would otherwise mix up the customers
+                // of different databases that happen to have the same id
+                "hibernate.cache.region_prefix", "customer-db-" + DATABASES.incrementAndGet()));
+        this.ownFactory = true;
+    }
+
     @Override
     public Customer save(Customer customer) throws DaoException {
-        try (var em = JpaUtil.createEntityManager()) {
+        try (var em = emf.createEntityManager()) {
             var tx = em.getTransaction();
             tx.begin();
             try {
@@ -28,23 +63,139 @@ public class JpaCustomerDao implements CustomerDao {
 
     @Override
     public Customer getById(int id) throws DaoException {
-        return null;
+        // served from the second-level cache when the customer was loaded before
+        try (var em = emf.createEntityManager()) {
+            return em.find(Customer.class, id);
+        } catch (Exception e) {
+            log.warn("error while calling JpaCustomerDao.getById()", e);
+            throw new DaoException(e);
+        }
     }
 
     @Override
     public void update(Customer customer) throws DaoException {
-
+        try (var em = emf.createEntityManager()) {
+            var tx = em.getTransaction();
+            tx.begin();
+            try {
+                if (em.find(Customer.class, customer.getId()) == null) {
+                    throw new DaoException("customer data not found for id " + customer.getId());
+                }
+                em.merge(customer);
+                tx.commit();
+            } catch (Exception e) {
+                tx.rollback();
+                throw new DaoException(e);
+            }
+        } catch (Exception e) {
+            throw new DaoException(e);
+        }
     }
 
     @Override
     public Customer deleteById(int id) throws DaoException {
-        return null;
+        try (var em = emf.createEntityManager()) {
+            var tx = em.getTransaction();
+            tx.begin();
+            try {
+                var customer = em.find(Customer.class, id);
+                if (customer == null) {
+                    throw new DaoException("customer data not found for id " + id);
+                }
+                em.remove(customer);
+                tx.commit();
+                return customer;
+            } catch (Exception e) {
+                tx.rollback();
+                throw new DaoException(e);
+            }
+        } catch (Exception e) {
+            throw new DaoException(e);
+        }
+    }
+
+    @Override
+    public List<Customer> saveAll(List<Customer> customers) throws DaoException {
+        try (var em = emf.createEntityManager()) {
+            var tx = em.getTransaction();
+            tx.begin();
+            try {
+                for (int i = 0; i < customers.size(); i++) {
+                    em.persist(customers.get(i));
+                    if ((i + 1) % BATCH_SIZE == 0) {
+                        // send this JDBC batch and keep the persistence context small
+                        em.flush();
+                        em.clear();
+                    }
+                }
+                tx.commit();
+                return customers;
+            } catch (Exception e) {
+                tx.rollback();
+                throw new DaoException(e);
+            }
+        } catch (Exception e) {
+            throw new DaoException(e);
+        }
+    }
+
+    @Override
+    public void updateAll(List<Customer> customers) throws DaoException {
+        try (var em = emf.createEntityManager()) {
+            var tx = em.getTransaction();
+            tx.begin();
+            try {
+                for (int i = 0; i < customers.size(); i++) {
+                    var customer = customers.get(i);
+                    if (em.find(Customer.class, customer.getId()) == null) {
+                        throw new DaoException("customer data not found for id " + customer.getId());
+                    }
+                    em.merge(customer);
+                    if ((i + 1) % BATCH_SIZE == 0) {
+                        em.flush();
+                        em.clear();
+                    }
+                }
+                tx.commit();
+            } catch (Exception e) {
+                tx.rollback();
+                throw new DaoException(e);
+            }
+        } catch (Exception e) {
+            throw new DaoException(e);
+        }
+    }
+
+    @Override
+    public List<Customer> deleteAllById(List<Integer> ids) throws DaoException {
+        try (var em = emf.createEntityManager()) {
+            var tx = em.getTransaction();
+            tx.begin();
+            try {
+                var deleted = new ArrayList<Customer>(ids.size());
+                for (int id : ids) {
+                    var customer = em.find(Customer.class, id);
+                    if (customer == null) {
+                        throw new DaoException("customer data not found for id " + id);
+                    }
+                    em.remove(customer);
+                    deleted.add(customer);
+                }
+                tx.commit();
+                return deleted;
+            } catch (Exception e) {
+                tx.rollback();
+                throw new DaoException(e);
+            }
+        } catch (Exception e) {
+            throw new DaoException(e);
+        }
     }
 
     @Override
     public List<Customer> getAll() throws DaoException {
-        try (var em = JpaUtil.createEntityManager()) {
-            return em.createQuery("from Customer", Customer.class)
+        try (var em = emf.createEntityManager()) {
+            return em.createNamedQuery("Customer.findAll", Customer.class)
                     .getResultList();
         } catch (Exception e) {
             log.warn("error while calling JpaCustomerDao.getAll()", e);
@@ -52,18 +203,87 @@ public class JpaCustomerDao implements CustomerDao {
         }
     }
 
+    @Override
+    public List<Customer> getPage(int afterId, int limit) throws DaoException {
+        try (var em = emf.createEntityManager()) {
+            return em.createQuery("from Customer c where c.id > :afterId order by c.id", Customer.class)
+                    .setParameter("afterId", afterId)
+                    .setMaxResults(limit)
+                    .getResultList();
+        } catch (Exception e) {
+            log.warn("error while calling JpaCustomerDao.getPage()", e);
+            throw new DaoException(e);
+        }
+    }
+
+    @Override
+    public Stream<Customer> streamAll() throws DaoException {
+        var em = emf.createEntityManager();
+        try {
+            // backed by a scrollable JDBC result set; each customer is detached
+            // once read so the persistence context does not grow with the stream
+            return em.createNamedQuery("Customer.findAll", Customer.class)
+                    .setHint("org.hibernate.fetchSize", FETCH_SIZE)
+                    .setHint("org.hibernate.readOnly", true)
+                    .getResultStream()
+                    .peek(em::detach)
+                    .onClose(em::close);
+        } catch (Exception e) {
+            em.close();
+            log.warn("error while calling JpaCustomerDao.streamAll()", e);
+            throw new DaoException(e);
+        }
+    }
+
     @Override
     public Customer getByEmail(String email) throws DaoException {
-        return null;
+        // email is the natural id, so this is resolved through the natural id cache
+        try (var em = emf.createEntityManager()) {
+            return em.unwrap(Session.class)
+                    .bySimpleNaturalId(Customer.class)
+                    .load(email);
+        } catch (Exception e) {
+            log.warn("error while calling JpaCustomerDao.getByEmail()", e);
+            throw new DaoException(e);
+        }
     }
 
     @Override
     public Customer getByPhone(String phone) throws DaoException {
-        return null;
+        try (var em = emf.createEntityManager()) {
+            return em.createNamedQuery("Customer.findByPhone", Customer.class)
+                    .setParameter("phone", phone)
+                    .setHint("org.hibernate.cacheable", true)
+                    .getResultStream()
+                    .findFirst()
+                    .orElse(null);
+        } catch (Exception e) {
+            log.warn("error while calling JpaCustomerDao.getByPhone()", e);
+            throw new DaoException(e);
+        }
     }
 
     @Override
     public List<Customer> getByCity(String city) throws DaoException {
-        return null;
+        try (var em = emf.createEntityManager()) {
+            return em.createNamedQuery("Customer.findByCity", Customer.class)
+                    .setParameter("city", city)
+                    .setHint("org.hibernate.cacheable", true)
+                    .getResultList();
+        } catch (Exception e) {
+            log.warn("error while calling JpaCustomerDao.getByCity()", e);
+            throw new DaoException(e);
+        }
+    }
+
+    @Override
+    public void close() throws DaoException {
+        if (ownFactory) {
+            try {
+                emf.close();
+            } catch (Exception e) {
+                throw new DaoException(e);
+            }
+        }
     }
 }
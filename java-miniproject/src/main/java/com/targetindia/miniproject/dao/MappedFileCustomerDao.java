@@ -0,0 +1,332 @@
+package com.targetindia.miniproject.dao;
+
+import com.targetindia.miniproject.model.Customer;
+import com.targetindia.miniproject.utils.IdGenerator;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Binary store that keeps customers in fixed-width slots of a memory-mapped
+ * file. Only the id→slot index is built on startup; a {@link Customer} is
+ * decoded from its slot when it is asked for. Updates are written in place
+ * and slots of deleted customers are reused through a free-list.
+ * <p>
+ * Slot layout (big endian, strings are UTF-8 with a 2 byte length prefix,
+ * which is -1 for a null string):
+ * <pre>
+ * status:1 | id:4 | name:2+64 | city:2+32 | email:2+64 | phone:2+16 | padding
+ * </pre>
+ * Since the file is addressed through a single {@link MappedByteBuffer} of
+ * at most 2 GB, it holds at most {@link #MAX_SLOTS} (about 11.18 million)
+ * customers; a save beyond that fails with a {@link DaoException}.
+ */
+@Slf4j
+public class MappedFileCustomerDao implements CustomerDao, StorageStatistics {
+
+    private static final String DEFAULT_FILENAME = "customers.dat";
+
+    private static final int MAGIC = 0x43555354; // "CUST"
+    private static final int HEADER_SIZE = 16;
+    private static final int SLOT_SIZE = 192;
+    private static final int INITIAL_SLOTS = 1024;
+    private static final int MAX_SLOTS = (Integer.MAX_VALUE - HEADER_SIZE) / SLOT_SIZE;
+    private static final short NULL_LENGTH = -1;
+
+    private static final byte FREE = 0;
+    private static final byte USED = 1;
+
+    private static final int NAME_SIZE = 64;
+    private static final int CITY_SIZE = 32;
+    private static final int EMAIL_SIZE = 64;
+    private static final int PHONE_SIZE = 16;
+
+    private static final int ID_OFFSET = 1;
+    private static final int NAME_OFFSET = ID_OFFSET + 4;
+    private static final int CITY_OFFSET = NAME_OFFSET + 2 + NAME_SIZE;
+    private static final int EMAIL_OFFSET = CITY_OFFSET + 2 + CITY_SIZE;
+    private static final int PHONE_OFFSET = EMAIL_OFFSET + 2 + EMAIL_SIZE;
+
+    private final FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int slotCount;
+
+    // slots that have been written at least once; everything above is untouched
+    private int usedSlots;
+
+    private final Map<Integer, Integer> slotById = new HashMap<>();
+    private final Deque<Integer> freeSlots = new ArrayDeque<>();
+
+    private final AtomicLong bytesWritten = new AtomicLong();
+
+    public MappedFileCustomerDao() throws DaoException {
+        this(DEFAULT_FILENAME);
+    }
+
+    public MappedFileCustomerDao(String filename) throws DaoException {
+        try {
+            channel = FileChannel.open(Path.of(filename),
+                    StandardOpenOption.CREATE,
+                    StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            if (channel.size() == 0) {
+                map(INITIAL_SLOTS);
+                buffer.putInt(0, MAGIC);
+                buffer.putInt(4, SLOT_SIZE);
+            } else {
+                map((int) ((channel.size() - HEADER_SIZE) / SLOT_SIZE));
+                if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != SLOT_SIZE) {
+                    throw new DaoException(filename + " is not a customer data file");
+                }
+                buildIndex();
+            }
+        } catch (IOException e) {
+            throw new DaoException(e);
+        }
+    }
+
+    private void map(int slots) throws IOException {
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) slots * SLOT_SIZE);
+        slotCount = slots;
+    }
+
+    private void buildIndex() {
+        usedSlots = buffer.getInt(8);
+        for (int slot = 0; slot < usedSlots; slot++) {
+            int offset = offsetOf(slot);
+            if (buffer.get(offset) == USED) {
+                slotById.put(buffer.getInt(offset + ID_OFFSET), slot);
+            } else {
+                freeSlots.push(slot);
+            }
+        }
+        log.debug("indexed {} customers in {} slots", slotById.size(), usedSlots);
+    }
+
+    private static int offsetOf(int slot) {
+        return HEADER_SIZE + slot * SLOT_SIZE;
+    }
+
+    private int allocateSlot() throws IOException, DaoException {
+        if (!freeSlots.isEmpty()) {
+            return freeSlots.pop();
+        }
+        if (usedSlots == slotCount) {
+            if (slotCount == MAX_SLOTS) {
+                throw new DaoException("customer data file is full at " + MAX_SLOTS + " customers");
+            }
+            // doubling past MAX_SLOTS would need a mapping over 2 GB
+            map((int) Math.min(slotCount * 2L, MAX_SLOTS));
+        }
+        buffer.putInt(8, usedSlots + 1);
+        return usedSlots++;
+    }
+
+    private String readString(int offset) {
+        int length = buffer.getShort(offset);
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        var bytes = new byte[length];
+        buffer.get(offset + 2, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // compares the stored field with the given bytes without decoding it
+    private boolean fieldEquals(int offset, byte[] value) {
+        int length = buffer.getShort(offset);
+        return length == value.length
+                && buffer.slice(offset + 2, length).equals(ByteBuffer.wrap(value));
+    }
+
+    private static void putString(ByteBuffer record, int offset, int size, String value) throws DaoException {
+        if (value == null) {
+            record.putShort(offset, NULL_LENGTH);
+            return;
+        }
+        var bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > size) {
+            throw new DaoException("value '" + value + "' does not fit in " + size + " bytes");
+        }
+        record.putShort(offset, (short) bytes.length);
+        record.put(offset + 2, bytes);
+    }
+
+    private void write(int slot, Customer customer) throws DaoException {
+        // encode the whole record first, so that a field that is too long
+        // leaves the slot untouched
+        var record = ByteBuffer.allocate(SLOT_SIZE);
+        record.put(0, USED);
+        record.putInt(ID_OFFSET, customer.getId());
+        putString(record, NAME_OFFSET, NAME_SIZE, customer.getName());
+        putString(record, CITY_OFFSET, CITY_SIZE, customer.getCity());
+        putString(record, EMAIL_OFFSET, EMAIL_SIZE, customer.getEmail());
+        putString(record, PHONE_OFFSET, PHONE_SIZE, customer.getPhone());
+        buffer.put(offsetOf(slot), record, 0, SLOT_SIZE);
+        bytesWritten.addAndGet(SLOT_SIZE);
+    }
+
+    // bytes put into the mapping; the OS writes the dirty pages back
+    @Override
+    public long getBytesWritten() {
+        return bytesWritten.get();
+    }
+
+    private Customer read(int slot) {
+        int offset = offsetOf(slot);
+        return new Customer(
+                buffer.getInt(offset + ID_OFFSET),
+                readString(offset + NAME_OFFSET),
+                readString(offset + CITY_OFFSET),
+                readString(offset + EMAIL_OFFSET),
+                readString(offset + PHONE_OFFSET));
+    }
+
+    private Customer findFirst(int fieldOffset, String value) {
+        if (value == null) {
+            return null;
+        }
+        var bytes = value.getBytes(StandardCharsets.UTF_8);
+        for (int slot = 0; slot < usedSlots; slot++) {
+            int offset = offsetOf(slot);
+            if (buffer.get(offset) == USED && fieldEquals(offset + fieldOffset, bytes)) {
+                return read(slot);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public synchronized Customer save(Customer customer) throws DaoException {
+        try {
+            // the id first, so that a failure to reserve one cannot leak the slot
+            int id = IdGenerator.generate();
+            int slot = allocateSlot();
+            customer.setId(id);
+            try {
+                write(slot, customer);
+            } catch (DaoException e) {
+                freeSlots.push(slot);
+                throw e;
+            }
+            slotById.put(customer.getId(), slot);
+            return customer;
+        } catch (IOException e) {
+            throw new DaoException(e);
+        }
+    }
+
+    @Override
+    public synchronized List<Customer> saveAll(List<Customer> customers) throws DaoException {
+        if (customers.isEmpty()) {
+            return customers;
+        }
+        try {
+            // records are written in place anyway; what the batch saves is
+            // one id range reservation instead of one per customer
+            int id = IdGenerator.generate(customers.size());
+            for (Customer customer : customers) {
+                int slot = allocateSlot();
+                customer.setId(id++);
+                try {
+                    write(slot, customer);
+                } catch (DaoException e) {
+                    freeSlots.push(slot);
+                    throw e;
+                }
+                slotById.put(customer.getId(), slot);
+            }
+            return customers;
+        } catch (IOException e) {
+            throw new DaoException(e);
+        }
+    }
+
+    @Override
+    public synchronized Customer getById(int id) throws DaoException {
+        var slot = slotById.get(id);
+        return slot == null ? null : read(slot);
+    }
+
+    @Override
+    public synchronized void update(Customer customer) throws DaoException {
+        var slot = slotById.get(customer.getId());
+        if (slot == null) {
+            throw new DaoException("customer data not found for id " + customer.getId());
+        }
+        write(slot, customer);
+    }
+
+    @Override
+    public synchronized Customer deleteById(int id) throws DaoException {
+        var slot = slotById.remove(id);
+        if (slot == null) {
+            throw new DaoException("customer data not found for id " + id);
+        }
+        var customer = read(slot);
+        buffer.put(offsetOf(slot), FREE);
+        bytesWritten.incrementAndGet();
+        freeSlots.push(slot);
+        return customer;
+    }
+
+    @Override
+    public synchronized List<Customer> getAll() throws DaoException {
+        var customers = new ArrayList<Customer>(slotById.size());
+        for (int slot = 0; slot < usedSlots; slot++) {
+            if (buffer.get(offsetOf(slot)) == USED) {
+                customers.add(read(slot));
+            }
+        }
+        return customers;
+    }
+
+    @Override
+    public synchronized Customer getByEmail(String email) throws DaoException {
+        return findFirst(EMAIL_OFFSET, email);
+    }
+
+    @Override
+    public synchronized Customer getByPhone(String phone) throws DaoException {
+        return findFirst(PHONE_OFFSET, phone);
+    }
+
+    @Override
+    public synchronized List<Customer> getByCity(String city) throws DaoException {
+        var customers = new ArrayList<Customer>();
+        if (city == null) {
+            return customers;
+        }
+        var bytes = city.getBytes(StandardCharsets.UTF_8);
+        for (int slot = 0; slot < usedSlots; slot++) {
+            int offset = offsetOf(slot);
+            if (buffer.get(offset) == USED && fieldEquals(offset + CITY_OFFSET, bytes)) {
+                customers.add(read(slot));
+            }
+        }
+        return customers;
+    }
+
+    @Override
+    public synchronized void close() throws DaoException {
+        try {
+            buffer.force();
+            channel.close();
+        } catch (IOException e) {
+            throw new DaoException(e);
+        }
+    }
+}
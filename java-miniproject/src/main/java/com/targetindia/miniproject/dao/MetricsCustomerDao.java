@@ -0,0 +1,473 @@
+package com.targetindia.miniproject.dao;
+
+import com.targetindia.miniproject.model.Customer;
+import com.targetindia.miniproject.utils.LatencyRecorder;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Decorator that measures every call into a {@link CustomerDao}.
+ * <p>
+ * Each operation has a {@link LatencyRecorder} (an HdrHistogram, so the
+ * percentiles are within 1%) and an error counter; errors are also counted
+ * by the type of their innermost cause. A call costs two
+ * {@link System#nanoTime()} reads and a wait-free histogram update, so the
+ * decorator can stay on in production.
+ * <p>
+ * The numbers since the start are published as MBeans under
+ * {@code com.targetindia.miniproject:type=CustomerDao}, one per operation
+ * and one for the dao, which also shows the bytes the wrapped dao has
+ * written if it implements {@link StorageStatistics}. If a report interval
+ * is given, the calls of each period are also logged.
+ * <p>
+ * For streamAll only opening the stream is timed.
+ */
+@Slf4j
+public class MetricsCustomerDao implements CustomerDao, CustomerDaoMetricsMXBean {
+
+    private static final String DOMAIN = "com.targetindia.miniproject";
+
+    // which instance each of the names is registered for, across all the daos; guarded by itself
+    private static final Map<ObjectName, Object> REGISTERED = new HashMap<>();
+
+    private final CustomerDao dao;
+    private final StorageStatistics storage;
+
+    private final Map<String, Operation> operations = new LinkedHashMap<>();
+    private final Map<String, LongAdder> errorsByType = new ConcurrentHashMap<>();
+
+    private final Operation save = operation("save");
+    private final Operation getById = operation("getById");
+    private final Operation update = operation("update");
+    private final Operation deleteById = operation("deleteById");
+    private final Operation saveAll = operation("saveAll");
+    private final Operation updateAll = operation("updateAll");
+    private final Operation deleteAllById = operation("deleteAllById");
+    private final Operation getAll = operation("getAll");
+    private final Operation getPage = operation("getPage");
+    private final Operation streamAll = operation("streamAll");
+    private final Operation getByEmail = operation("getByEmail");
+    private final Operation getByPhone = operation("getByPhone");
+    private final Operation getByCity = operation("getByCity");
+    private final Operation searchByNamePrefix = operation("searchByNamePrefix");
+    private final Operation searchByEmailPrefix = operation("searchByEmailPrefix");
+    private final Operation searchByName = operation("searchByName");
+
+    // null when there is no periodic report
+    private final ScheduledExecutorService reporter;
+
+    private static class Operation implements OperationMetricsMXBean {
+        final String name;
+        final LatencyRecorder latency = new LatencyRecorder();
+        final LongAdder errors = new LongAdder();
+        // errors at the previous report
+        long reportedErrors;
+
+        Operation(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public long getCount() {
+            return latency.total().count();
+        }
+
+        @Override
+        public long getErrors() {
+            return errors.sum();
+        }
+
+        @Override
+        public double getMeanMicros() {
+            return latency.total().mean() / 1000;
+        }
+
+        @Override
+        public double getP50Micros() {
+            return latency.total().p50() / 1000.0;
+        }
+
+        @Override
+        public double getP99Micros() {
+            return latency.total().p99() / 1000.0;
+        }
+
+        @Override
+        public double getP999Micros() {
+            return latency.total().p999() / 1000.0;
+        }
+
+        @Override
+        public double getMaxMicros() {
+            return latency.total().max() / 1000.0;
+        }
+    }
+
+    private Operation operation(String name) {
+        var operation = new Operation(name);
+        operations.put(name, operation);
+        return operation;
+    }
+
+    /**
+     * @param storage               where the bytes written come from, or null
+     * @param reportIntervalSeconds how often to log the calls of the last period; 0 for never
+     */
+    public MetricsCustomerDao(CustomerDao dao, StorageStatistics storage, long reportIntervalSeconds) {
+        this.dao = dao;
+        this.storage = storage;
+        registerMBeans();
+        if (reportIntervalSeconds > 0) {
+            reporter = Executors.newSingleThreadScheduledExecutor(r -> {
+                var thread = new Thread(r, "customer-dao-metrics-reporter");
+                thread.setDaemon(true);
+                return thread;
+            });
+            reporter.scheduleAtFixedRate(() -> report(reportIntervalSeconds),
+                    reportIntervalSeconds, reportIntervalSeconds, TimeUnit.SECONDS);
+        } else {
+            reporter = null;
+        }
+    }
+
+    // a dao created later replaces the MBeans of an earlier one; closing the
+    // earlier one then leaves them registered
+    private void registerMBeans() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            register(server, new ObjectName(DOMAIN + ":type=CustomerDao,name=metrics"), this);
+            for (var operation : operations.values()) {
+                register(server, new ObjectName(DOMAIN + ":type=CustomerDao,name=metrics,operation="
+                        + operation.name), operation);
+            }
+        } catch (JMException e) {
+            log.warn("could not register the customer dao metrics with JMX", e);
+        }
+    }
+
+    private void unregisterMBeans() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            unregister(server, new ObjectName(DOMAIN + ":type=CustomerDao,name=metrics"), this);
+            for (var operation : operations.values()) {
+                unregister(server, new ObjectName(DOMAIN + ":type=CustomerDao,name=metrics,operation="
+                        + operation.name), operation);
+            }
+        } catch (JMException e) {
+            log.warn("could not unregister the customer dao metrics from JMX", e);
+        }
+    }
+
+    // unregisters the name only while it still belongs to the given mbean
+    private static void unregister(MBeanServer server, ObjectName name, Object mbean) throws JMException {
+        synchronized (REGISTERED) {
+            if (REGISTERED.get(name) != mbean) {
+                return;
+            }
+            REGISTERED.remove(name);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+        }
+    }
+
+    private static void register(MBeanServer server, ObjectName name, Object mbean) throws JMException {
+        synchronized (REGISTERED) {
+            try {
+                server.registerMBean(mbean, name);
+            } catch (InstanceAlreadyExistsException e) {
+                server.unregisterMBean(name);
+                server.registerMBean(mbean, name);
+            }
+            REGISTERED.put(name, mbean);
+        }
+    }
+
+    private void report(long intervalSeconds) {
+        try {
+            for (var operation : operations.values()) {
+                var latency = operation.latency.takeSinceReport();
+                long errors = operation.errors.sum();
+                if (latency.count() == 0) {
+                    continue;
+                }
+                log.info("{}: {} calls ({}/s), {} errors, p50 {} us, p99 {} us, p99.9 {} us, max {} us",
+                        operation.name, latency.count(), Math.round((double) latency.count() / intervalSeconds),
+                        errors - operation.reportedErrors, latency.p50() / 1000, latency.p99() / 1000,
+                        latency.p999() / 1000, latency.max() / 1000);
+                operation.reportedErrors = errors;
+            }
+            if (storage != null) {
+                log.info("customer dao bytes written: {}", storage.getBytesWritten());
+            }
+        } catch (RuntimeException e) {
+            // an exception would cancel the schedule
+            log.warn("error while reporting the customer dao metrics", e);
+        }
+    }
+
+    @Override
+    public long getCalls() {
+        return operations.values().stream().mapToLong(Operation::getCount).sum();
+    }
+
+    @Override
+    public long getErrors() {
+        return operations.values().stream().mapToLong(Operation::getErrors).sum();
+    }
+
+    @Override
+    public Map<String, Long> getErrorsByType() {
+        var errors = new TreeMap<String, Long>();
+        errorsByType.forEach((type, count) -> errors.put(type, count.sum()));
+        return errors;
+    }
+
+    @Override
+    public long getBytesWritten() {
+        return storage == null ? -1 : storage.getBytesWritten();
+    }
+
+    // counts the error; the caller rethrows it
+    private void failed(Operation operation, Exception e) {
+        operation.errors.increment();
+        Throwable cause = e;
+        while (cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        errorsByType.computeIfAbsent(cause.getClass().getSimpleName(), type -> new LongAdder()).increment();
+    }
+
+    @Override
+    public Customer save(Customer customer) throws DaoException {
+        long start = System.nanoTime();
+        try {
+            return dao.save(customer);
+        } catch (DaoException | RuntimeException e) {
+            failed(save, e);
+            throw e;
+        } finally {
+            save.latency.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public Customer getById(int id) throws DaoException {
+        long start = System.nanoTime();
+        try {
+            return dao.getById(id);
+        } catch (DaoException | RuntimeException e) {
+            failed(getById, e);
+            throw e;
+        } finally {
+            getById.latency.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void update(Customer customer) throws DaoException {
+        long start = System.nanoTime();
+        try {
+            dao.update(customer);
+        } catch (DaoException | RuntimeException e) {
+            failed(update, e);
+            throw e;
+        } finally {
+            update.latency.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public Customer deleteById(int id) throws DaoException {
+        long start = System.nanoTime();
+        try {
+            return dao.deleteById(id);
+        } catch (DaoException | RuntimeException e) {
+            failed(deleteById, e);
+            throw e;
+        } finally {
+            deleteById.latency.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public List<Customer> saveAll(List<Customer> customers) throws DaoException {
+        long start = System.nanoTime();
+        try {
+            return dao.saveAll(customers);
+        } catch (DaoException | RuntimeException e) {
+            failed(saveAll, e);
+            throw e;
+        } finally {
+            saveAll.latency.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void updateAll(List<Customer> customers) throws DaoException {
+        long start = System.nanoTime();
+        try {
+            dao.updateAll(customers);
+        } catch (DaoException | RuntimeException e) {
+            failed(updateAll, e);
+            throw e;
+        } finally {
+            updateAll.latency.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public List<Customer> deleteAllById(List<Integer> ids) throws DaoException {
+        long start = System.nanoTime();
+        try {
+            return dao.deleteAllById(ids);
+        } catch (DaoException | RuntimeException e) {
+            failed(deleteAllById, e);
+            throw e;
+        } finally {
+            deleteAllById.latency.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public List<Customer> getAll() throws DaoException {
+        long start = System.nanoTime();
+        try {
+            return dao.getAll();
+        } catch (DaoException | RuntimeException e) {
+            failed(getAll, e);
+            throw e;
+        } finally {
+            getAll.latency.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public List<Customer> getPage(int afterId, int limit) throws DaoException {
+        long start = System.nanoTime();
+        try {
+            return dao.getPage(afterId, limit);
+        } catch (DaoException | RuntimeException e) {
+            failed(getPage, e);
+            throw e;
+        } finally {
+            getPage.latency.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public Stream<Customer> streamAll() throws DaoException {
+        long start = System.nanoTime();
+        try {
+            return dao.streamAll();
+        } catch (DaoException | RuntimeException e) {
+            failed(streamAll, e);
+            throw e;
+        } finally {
+            streamAll.latency.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public Customer getByEmail(String email) throws DaoException {
+        long start = System.nanoTime();
+        try {
+            return dao.getByEmail(email);
+        } catch (DaoException | RuntimeException e) {
+            failed(getByEmail, e);
+            throw e;
+        } finally {
+            getByEmail.latency.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public Customer getByPhone(String phone) throws DaoException {
+        long start = System.nanoTime();
+        try {
+            return dao.getByPhone(phone);
+        } catch (DaoException | RuntimeException e) {
+            failed(getByPhone, e);
+            throw e;
+        } finally {
+            getByPhone.latency.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public List<Customer> getByCity(String city) throws DaoException {
+        long start = System.nanoTime();
+        try {
+            return dao.getByCity(city);
+        } catch (DaoException | RuntimeException e) {
+            failed(getByCity, e);
+            throw e;
+        } finally {
+            getByCity.latency.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public List<Customer> searchByNamePrefix(String prefix, int limit) throws DaoException {
+        long start = System.nanoTime();
+        try {
+            return dao.searchByNamePrefix(prefix, limit);
+        } catch (DaoException | RuntimeException e) {
+            failed(searchByNamePrefix, e);
+            throw e;
+        } finally {
+            searchByNamePrefix.latency.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public List<Customer> searchByEmailPrefix(String prefix, int limit) throws DaoException {
+        long start = System.nanoTime();
+        try {
+            return dao.searchByEmailPrefix(prefix, limit);
+        } catch (DaoException | RuntimeException e) {
+            failed(searchByEmailPrefix, e);
+            throw e;
+        } finally {
+            searchByEmailPrefix.latency.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public List<Customer> searchByName(String name, int limit) throws DaoException {
+        long start = System.nanoTime();
+        try {
+            return dao.searchByName(name, limit);
+        } catch (DaoException | RuntimeException e) {
+            failed(searchByName, e);
+            throw e;
+        } finally {
+            searchByName.latency.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void close() throws DaoException {
+        if (reporter != null) {
+            reporter.shutdown();
+        }
+        unregisterMBeans();
+        dao.close();
+    }
+}
@@ -0,0 +1,600 @@
+package com.targetindia.miniproject.dao;
+
+import com.targetindia.miniproject.model.Customer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * In-memory dao that keeps the customers outside the Java heap, for data
+ * sets too large to hold as millions of {@link Customer} objects.
+ * <p>
+ * Records are appended to direct {@link ByteBuffer} arenas of
+ * {@link #ARENA_SIZE} bytes each, as {@code id, name, city, email, phone}
+ * with every string stored as a length-prefixed UTF-8 run. The only heap
+ * structures are three open-addressing tables of primitives: id to record
+ * address, and email and phone to record address (these compare the key
+ * with the bytes of the record, so no strings are kept). {@link Customer}
+ * objects are only created for the results of a call.
+ * <p>
+ * An update appends a new record and a delete only drops the index entries;
+ * once more than half of the arena bytes belong to such dead records, the
+ * live ones are copied into fresh arenas. getByCity scans all the records.
+ * Like {@link MappedFileCustomerDao}, all methods are synchronized.
+ */
+@Slf4j
+public class OffHeapCustomerDao implements CustomerDao {
+
+    private static final int ARENA_SIZE = 64 * 1024 * 1024;
+
+    // a string longer than this many UTF-8 bytes does not fit its length prefix
+    private static final int MAX_FIELD_BYTES = Short.MAX_VALUE;
+
+    private static final int NAME = 0;
+    private static final int CITY = 1;
+    private static final int EMAIL = 2;
+    private static final int PHONE = 3;
+
+    private final List<ByteBuffer> arenas = new ArrayList<>();
+    private ByteBuffer current;
+
+    // bytes taken by records no index points at any more
+    private long deadBytes;
+    private long usedBytes;
+
+    private final IdIndex byId = new IdIndex();
+    private final KeyIndex byEmail = new KeyIndex(EMAIL);
+    private final KeyIndex byPhone = new KeyIndex(PHONE);
+
+    private int maxId = 0;
+
+    // reused for decoding strings
+    private byte[] scratch = new byte[256];
+
+    public OffHeapCustomerDao() {
+        newArena();
+        add(new Customer(1, "Vinod Kumar", "Bangalore", "vinod@vinod.co", "9731424784"));
+        add(new Customer(2, "John Doe", "Dallas", "jd@xmpl.com", "5567424784"));
+    }
+
+    private void newArena() {
+        current = ByteBuffer.allocateDirect(ARENA_SIZE);
+        arenas.add(current);
+    }
+
+    public synchronized long getOffHeapBytes() {
+        return (long) arenas.size() * ARENA_SIZE;
+    }
+
+    public synchronized long getLiveBytes() {
+        return usedBytes - deadBytes;
+    }
+
+    // an address holds the arena number in the high and the offset in the low int
+    private static long address(int arena, int offset) {
+        return ((long) arena << 32) | offset;
+    }
+
+    private ByteBuffer arenaOf(long address) {
+        return arenas.get((int) (address >>> 32));
+    }
+
+    private static int offsetOf(long address) {
+        return (int) address;
+    }
+
+    private static byte[] encode(String value) throws DaoException {
+        if (value == null) {
+            return null;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_FIELD_BYTES) {
+            throw new DaoException("value too long to store: " + value.length() + " chars");
+        }
+        return bytes;
+    }
+
+    private long append(int id, byte[][] fields) {
+        int size = recordSize(fields);
+        if (current.remaining() < size) {
+            newArena();
+        }
+        long address = address(arenas.size() - 1, current.position());
+        current.putInt(id);
+        for (byte[] field : fields) {
+            if (field == null) {
+                current.putShort((short) -1);
+            } else {
+                current.putShort((short) field.length);
+                current.put(field);
+            }
+        }
+        usedBytes += size;
+        return address;
+    }
+
+    private static int recordSize(byte[][] fields) {
+        int size = Integer.BYTES;
+        for (byte[] field : fields) {
+            size += Short.BYTES + (field == null ? 0 : field.length);
+        }
+        return size;
+    }
+
+    private int recordSize(long address) {
+        return recordSize(address, arenaOf(address));
+    }
+
+    // also used while the arena is no longer in the arena list
+    private static int recordSize(long address, ByteBuffer arena) {
+        return fieldOffset(arena, address, 4) - offsetOf(address);
+    }
+
+    // position of the length prefix of the given field of a record
+    private static int fieldOffset(ByteBuffer arena, long address, int field) {
+        int offset = offsetOf(address) + Integer.BYTES;
+        for (int i = 0; i < field; i++) {
+            offset += Short.BYTES + Math.max(0, arena.getShort(offset));
+        }
+        return offset;
+    }
+
+    private boolean fieldEquals(long address, int field, byte[] value) {
+        var arena = arenaOf(address);
+        int offset = fieldOffset(arena, address, field);
+        int length = arena.getShort(offset);
+        if (value == null || length != value.length) {
+            return value == null && length < 0;
+        }
+        offset += Short.BYTES;
+        for (int i = 0; i < length; i++) {
+            if (arena.get(offset + i) != value[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int fieldHash(long address, int field) {
+        var arena = arenaOf(address);
+        int offset = fieldOffset(arena, address, field);
+        int hash = 1;
+        int length = arena.getShort(offset);
+        for (int i = 0; i < length; i++) {
+            hash = 31 * hash + arena.get(offset + Short.BYTES + i);
+        }
+        return hash;
+    }
+
+    private static int hash(byte[] value) {
+        return Arrays.hashCode(value);
+    }
+
+    private Customer read(long address) {
+        var arena = arenaOf(address);
+        int offset = offsetOf(address);
+        var customer = new Customer();
+        customer.setId(arena.getInt(offset));
+        offset += Integer.BYTES;
+        String[] fields = new String[4];
+        for (int i = 0; i < 4; i++) {
+            int length = arena.getShort(offset);
+            offset += Short.BYTES;
+            if (length >= 0) {
+                if (scratch.length < length) {
+                    scratch = new byte[Math.max(length, scratch.length * 2)];
+                }
+                arena.get(offset, scratch, 0, length);
+                fields[i] = new String(scratch, 0, length, StandardCharsets.UTF_8);
+                offset += length;
+            }
+        }
+        customer.setName(fields[NAME]);
+        customer.setCity(fields[CITY]);
+        customer.setEmail(fields[EMAIL]);
+        customer.setPhone(fields[PHONE]);
+        return customer;
+    }
+
+    private byte[][] encode(Customer customer) throws DaoException {
+        return new byte[][]{
+                encode(customer.getName()),
+                encode(customer.getCity()),
+                encode(customer.getEmail()),
+                encode(customer.getPhone())};
+    }
+
+    private void checkUnique(int id, byte[][] fields, Customer customer) throws DaoException {
+        long byEmailAddress = byEmail.get(fields[EMAIL]);
+        if (byEmailAddress >= 0 && arenaOf(byEmailAddress).getInt(offsetOf(byEmailAddress)) != id) {
+            throw new DaoException("email " + customer.getEmail() + " already exists for id "
+                    + arenaOf(byEmailAddress).getInt(offsetOf(byEmailAddress)));
+        }
+        long byPhoneAddress = byPhone.get(fields[PHONE]);
+        if (byPhoneAddress >= 0 && arenaOf(byPhoneAddress).getInt(offsetOf(byPhoneAddress)) != id) {
+            throw new DaoException("phone " + customer.getPhone() + " already exists for id "
+                    + arenaOf(byPhoneAddress).getInt(offsetOf(byPhoneAddress)));
+        }
+    }
+
+    private void add(Customer customer) {
+        try {
+            store(customer.getId(), encode(customer));
+        } catch (DaoException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    private void store(int id, byte[][] fields) {
+        long address = append(id, fields);
+        byId.put(id, address);
+        if (fields[EMAIL] != null) {
+            byEmail.put(fields[EMAIL], address);
+        }
+        if (fields[PHONE] != null) {
+            byPhone.put(fields[PHONE], address);
+        }
+        maxId = Math.max(maxId, id);
+    }
+
+    private void remove(long address) {
+        byEmail.remove(address);
+        byPhone.remove(address);
+        deadBytes += recordSize(address);
+    }
+
+    @Override
+    public synchronized Customer save(Customer customer) throws DaoException {
+        int id = maxId + 1;
+        var fields = encode(customer);
+        checkUnique(id, fields, customer);
+        store(id, fields);
+        customer.setId(id);
+        return customer;
+    }
+
+    @Override
+    public synchronized Customer getById(int id) throws DaoException {
+        long address = byId.get(id);
+        return address < 0 ? null : read(address);
+    }
+
+    @Override
+    public synchronized void update(Customer customer) throws DaoException {
+        long existing = customer.getId() == null ? -1 : byId.get(customer.getId());
+        if (existing < 0) {
+            throw new DaoException("customer data not found for id " + customer.getId());
+        }
+        var fields = encode(customer);
+        checkUnique(customer.getId(), fields, customer);
+        remove(existing);
+        store(customer.getId(), fields);
+        compactIfNeeded();
+    }
+
+    @Override
+    public synchronized Customer deleteById(int id) throws DaoException {
+        long address = byId.get(id);
+        if (address < 0) {
+            throw new DaoException("No customer found for id " + id);
+        }
+        var customer = read(address);
+        byId.remove(id);
+        remove(address);
+        compactIfNeeded();
+        return customer;
+    }
+
+    @Override
+    public synchronized List<Customer> saveAll(List<Customer> customers) throws DaoException {
+        // all or nothing: every customer is checked before any is stored
+        var encoded = new ArrayList<byte[][]>(customers.size());
+        var emails = new HashSet<String>();
+        var phones = new HashSet<String>();
+        for (Customer customer : customers) {
+            var fields = encode(customer);
+            checkUnique(0, fields, customer);
+            if (customer.getEmail() != null && !emails.add(customer.getEmail())) {
+                throw new DaoException("email " + customer.getEmail() + " appears twice in the batch");
+            }
+            if (customer.getPhone() != null && !phones.add(customer.getPhone())) {
+                throw new DaoException("phone " + customer.getPhone() + " appears twice in the batch");
+            }
+            encoded.add(fields);
+        }
+        for (int i = 0; i < customers.size(); i++) {
+            int id = maxId + 1;
+            store(id, encoded.get(i));
+            customers.get(i).setId(id);
+        }
+        return customers;
+    }
+
+    @Override
+    public synchronized List<Customer> getAll() throws DaoException {
+        // ids are handed out in increasing order, so this is insertion order
+        int[] ids = byId.keys();
+        Arrays.sort(ids);
+        var customers = new ArrayList<Customer>(ids.length);
+        for (int id : ids) {
+            customers.add(read(byId.get(id)));
+        }
+        return customers;
+    }
+
+    @Override
+    public synchronized Customer getByEmail(String email) throws DaoException {
+        long address = email == null ? -1 : byEmail.get(encode(email));
+        return address < 0 ? null : read(address);
+    }
+
+    @Override
+    public synchronized Customer getByPhone(String phone) throws DaoException {
+        long address = phone == null ? -1 : byPhone.get(encode(phone));
+        return address < 0 ? null : read(address);
+    }
+
+    @Override
+    public synchronized List<Customer> getByCity(String city) throws DaoException {
+        byte[] key = encode(city);
+        int[] ids = byId.keys();
+        Arrays.sort(ids);
+        var customers = new ArrayList<Customer>();
+        for (int id : ids) {
+            long address = byId.get(id);
+            if (fieldEquals(address, CITY, key)) {
+                customers.add(read(address));
+            }
+        }
+        return customers;
+    }
+
+    private void compactIfNeeded() {
+        if (deadBytes < ARENA_SIZE || deadBytes * 2 < usedBytes) {
+            return;
+        }
+        long start = System.nanoTime();
+        var old = new ArrayList<>(arenas);
+        int[] ids = byId.keys();
+        Arrays.sort(ids);
+        long[] addresses = new long[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            addresses[i] = byId.get(ids[i]);
+        }
+
+        arenas.clear();
+        newArena();
+        usedBytes = 0;
+        deadBytes = 0;
+        byId.clear();
+        byEmail.clear();
+        byPhone.clear();
+        for (int i = 0; i < ids.length; i++) {
+            var arena = old.get((int) (addresses[i] >>> 32));
+            int offset = offsetOf(addresses[i]);
+            int size = recordSize(addresses[i], arena);
+            if (current.remaining() < size) {
+                newArena();
+            }
+            long address = address(arenas.size() - 1, current.position());
+            current.put(current.position(), arena, offset, size);
+            current.position(current.position() + size);
+            usedBytes += size;
+            byId.put(ids[i], address);
+            byEmail.putRecord(address);
+            byPhone.putRecord(address);
+        }
+        log.info("compacted {} customers from {} into {} arenas in {} ms",
+                ids.length, old.size(), arenas.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private static int mix(int hash) {
+        hash *= 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Open-addressing map from (positive) id to record address, with linear
+     * probing and backward-shift deletion, in two primitive arrays.
+     */
+    private static class IdIndex {
+        private int[] keys = new int[16];
+        private long[] values = new long[16];
+        private int size;
+
+        long get(int id) {
+            int mask = keys.length - 1;
+            for (int i = mix(id) & mask; keys[i] != 0; i = (i + 1) & mask) {
+                if (keys[i] == id) {
+                    return values[i];
+                }
+            }
+            return -1;
+        }
+
+        void put(int id, long address) {
+            if ((size + 1) * 2 > keys.length) {
+                resize(keys.length * 2);
+            }
+            int mask = keys.length - 1;
+            int i = mix(id) & mask;
+            for (; keys[i] != 0; i = (i + 1) & mask) {
+                if (keys[i] == id) {
+                    values[i] = address;
+                    return;
+                }
+            }
+            keys[i] = id;
+            values[i] = address;
+            size++;
+        }
+
+        void remove(int id) {
+            int mask = keys.length - 1;
+            int i = mix(id) & mask;
+            while (keys[i] != id) {
+                if (keys[i] == 0) {
+                    return;
+                }
+                i = (i + 1) & mask;
+            }
+            // shift back the entries after the removed one that probed past it
+            for (int j = (i + 1) & mask; keys[j] != 0; j = (j + 1) & mask) {
+                int home = mix(keys[j]) & mask;
+                if (((j - home) & mask) >= ((j - i) & mask)) {
+                    keys[i] = keys[j];
+                    values[i] = values[j];
+                    i = j;
+                }
+            }
+            keys[i] = 0;
+            size--;
+        }
+
+        int[] keys() {
+            int[] result = new int[size];
+            int n = 0;
+            for (int key : keys) {
+                if (key != 0) {
+                    result[n++] = key;
+                }
+            }
+            return result;
+        }
+
+        void clear() {
+            keys = new int[16];
+            values = new long[16];
+            size = 0;
+        }
+
+        private void resize(int capacity) {
+            int[] oldKeys = keys;
+            long[] oldValues = values;
+            keys = new int[capacity];
+            values = new long[capacity];
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != 0) {
+                    put(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Open-addressing set of record addresses, looked up by the bytes of one
+     * string field of the record. Only the addresses are stored; the keys
+     * are compared with the record itself.
+     */
+    private class KeyIndex {
+        private static final long EMPTY = -1;
+
+        private final int field;
+        private long[] slots = newSlots(16);
+        private int size;
+
+        KeyIndex(int field) {
+            this.field = field;
+        }
+
+        private static long[] newSlots(int capacity) {
+            long[] slots = new long[capacity];
+            Arrays.fill(slots, EMPTY);
+            return slots;
+        }
+
+        long get(byte[] key) {
+            if (key == null) {
+                return EMPTY;
+            }
+            int mask = slots.length - 1;
+            for (int i = mix(hash(key)) & mask; slots[i] != EMPTY; i = (i + 1) & mask) {
+                if (fieldEquals(slots[i], field, key)) {
+                    return slots[i];
+                }
+            }
+            return EMPTY;
+        }
+
+        void put(byte[] key, long address) {
+            if ((size + 1) * 2 > slots.length) {
+                resize(slots.length * 2);
+            }
+            int mask = slots.length - 1;
+            int i = mix(hash(key)) & mask;
+            for (; slots[i] != EMPTY; i = (i + 1) & mask) {
+                if (fieldEquals(slots[i], field, key)) {
+                    slots[i] = address;
+                    return;
+                }
+            }
+            slots[i] = address;
+            size++;
+        }
+
+        void putRecord(long address) {
+            if (arenaOf(address).getShort(fieldOffset(arenaOf(address), address, field)) < 0) {
+                return; // null fields are not indexed
+            }
+            if ((size + 1) * 2 > slots.length) {
+                resize(slots.length * 2);
+            }
+            int mask = slots.length - 1;
+            int i = mix(fieldHash(address, field)) & mask;
+            while (slots[i] != EMPTY) {
+                i = (i + 1) & mask;
+            }
+            slots[i] = address;
+            size++;
+        }
+
+        // removes the entry that points at this record, if there is one
+        void remove(long address) {
+            if (arenaOf(address).getShort(fieldOffset(arenaOf(address), address, field)) < 0) {
+                return;
+            }
+            int mask = slots.length - 1;
+            int i = -1;
+            for (int j = mix(fieldHash(address, field)) & mask; slots[j] != EMPTY; j = (j + 1) & mask) {
+                if (slots[j] == address) {
+                    i = j;
+                    break;
+                }
+            }
+            if (i < 0) {
+                return;
+            }
+            for (int j = (i + 1) & mask; slots[j] != EMPTY; j = (j + 1) & mask) {
+                int home = mix(fieldHash(slots[j], field)) & mask;
+                if (((j - home) & mask) >= ((j - i) & mask)) {
+                    slots[i] = slots[j];
+                    i = j;
+                }
+            }
+            slots[i] = EMPTY;
+            size--;
+        }
+
+        void clear() {
+            slots = newSlots(16);
+            size = 0;
+        }
+
+        private void resize(int capacity) {
+            long[] old = slots;
+            slots = newSlots(capacity);
+            size = 0;
+            for (long address : old) {
+                if (address != EMPTY) {
+                    putRecord(address);
+                }
+            }
+        }
+    }
+}
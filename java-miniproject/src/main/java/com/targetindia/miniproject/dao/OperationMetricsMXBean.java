@@ -0,0 +1,22 @@
+package com.targetindia.miniproject.dao;
+
+/**
+ * JMX view of the calls of one {@link CustomerDao} operation since the
+ * start; latencies are in microseconds.
+ */
+public interface OperationMetricsMXBean {
+
+    long getCount();
+
+    long getErrors();
+
+    double getMeanMicros();
+
+    double getP50Micros();
+
+    double getP99Micros();
+
+    double getP999Micros();
+
+    double getMaxMicros();
+}
@@ -0,0 +1,351 @@
+package com.targetindia.miniproject.dao;
+
+import com.targetindia.miniproject.model.Customer;
+import com.targetindia.miniproject.utils.IntHashMap;
+import com.targetindia.miniproject.utils.WordTrie;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Decorator that answers the search queries of {@link CustomerDao} from an
+ * in-memory index instead of scanning every customer.
+ * <p>
+ * Name words (lower case) are kept in a {@link WordTrie} and emails (lower
+ * case) in a sorted map, each with the ids that have them, so a prefix
+ * query walks only the matching keys, in order, and stops at the limit. The
+ * typo-tolerant search walks the trie with an edit distance bound, and then
+ * visits the ids of the closest words first. The index is built from
+ * {@link CustomerDao#streamAll()} and then kept up to date by the writes
+ * that go through this decorator.
+ * <p>
+ * Writes are serialized, so the index is updated in the order the dao
+ * applied them; everything else is passed through.
+ */
+@Slf4j
+public class SearchIndexCustomerDao implements CustomerDao {
+
+    private static final Boolean PRESENT = Boolean.TRUE;
+
+    private final CustomerDao dao;
+
+    private final WordTrie idsByWord = new WordTrie();
+    private final TreeMap<String, IntHashMap<Boolean>> idsByEmail = new TreeMap<>();
+
+    // what each id was indexed under, to take it out again
+    private final IntHashMap<Indexed> indexed = new IntHashMap<>();
+
+    private record Indexed(String name, List<String> words, String email) {
+    }
+
+    private final ReentrantLock writes = new ReentrantLock();
+    private final ReentrantReadWriteLock index = new ReentrantReadWriteLock();
+
+    public SearchIndexCustomerDao(CustomerDao dao) throws DaoException {
+        this.dao = dao;
+        long start = System.nanoTime();
+        try (var customers = dao.streamAll()) {
+            customers.forEach(this::add);
+        } catch (RuntimeException e) {
+            throw new DaoException(e);
+        }
+        log.info("indexed {} customers ({} distinct name words) in {} ms",
+                indexed.size(), idsByWord.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+
+    // callers hold the write lock, or are the constructor
+    private void add(Customer customer) {
+        int id = customer.getId();
+        var entry = new Indexed(customer.getName(),
+                List.copyOf(new LinkedHashSet<>(CustomerSearch.words(customer.getName()))),
+                customer.getEmail() == null ? null : CustomerSearch.normalize(customer.getEmail()));
+        indexed.put(id, entry);
+        for (String word : entry.words()) {
+            idsByWord.add(word, id);
+        }
+        if (entry.email() != null) {
+            idsByEmail.computeIfAbsent(entry.email(), email -> new IntHashMap<>()).put(id, PRESENT);
+        }
+    }
+
+    private void remove(int id) {
+        var entry = indexed.remove(id);
+        if (entry == null) {
+            return;
+        }
+        for (String word : entry.words()) {
+            idsByWord.remove(word, id);
+        }
+        var sameEmail = entry.email() == null ? null : idsByEmail.get(entry.email());
+        if (sameEmail != null) {
+            sameEmail.remove(id);
+            if (sameEmail.isEmpty()) {
+                idsByEmail.remove(entry.email());
+            }
+        }
+    }
+
+    private interface Write<T> {
+        T write() throws DaoException;
+    }
+
+    // runs a write on the dao, then applies it to the index
+    private <T> T write(Write<T> write, Consumer<T> apply) throws DaoException {
+        writes.lock();
+        try {
+            T result = write.write();
+            index.writeLock().lock();
+            try {
+                apply.accept(result);
+            } finally {
+                index.writeLock().unlock();
+            }
+            return result;
+        } finally {
+            writes.unlock();
+        }
+    }
+
+    @Override
+    public Customer save(Customer customer) throws DaoException {
+        return write(() -> dao.save(customer), this::add);
+    }
+
+    @Override
+    public void update(Customer customer) throws DaoException {
+        write(() -> {
+            dao.update(customer);
+            return customer;
+        }, updated -> {
+            remove(updated.getId());
+            add(updated);
+        });
+    }
+
+    @Override
+    public Customer deleteById(int id) throws DaoException {
+        return write(() -> dao.deleteById(id), deleted -> remove(id));
+    }
+
+    @Override
+    public List<Customer> saveAll(List<Customer> customers) throws DaoException {
+        return write(() -> dao.saveAll(customers), saved -> saved.forEach(this::add));
+    }
+
+    @Override
+    public void updateAll(List<Customer> customers) throws DaoException {
+        write(() -> {
+            dao.updateAll(customers);
+            return customers;
+        }, updated -> updated.forEach(customer -> {
+            remove(customer.getId());
+            add(customer);
+        }));
+    }
+
+    @Override
+    public List<Customer> deleteAllById(List<Integer> ids) throws DaoException {
+        return write(() -> dao.deleteAllById(ids), deleted -> ids.forEach(this::remove));
+    }
+
+    // looks the ids up in the dao, in order, skipping any deleted since
+    private List<Customer> resolve(List<Integer> ids) throws DaoException {
+        var customers = new ArrayList<Customer>(ids.size());
+        for (int id : ids) {
+            var customer = dao.getById(id);
+            if (customer != null) {
+                customers.add(customer);
+            }
+        }
+        return customers;
+    }
+
+    private static int[] sortedIds(IntHashMap<Boolean> ids) {
+        int[] sorted = ids.keys();
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    @Override
+    public List<Customer> searchByNamePrefix(String prefix, int limit) throws DaoException {
+        var queryWords = CustomerSearch.words(prefix);
+        if (queryWords.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        // walks the words starting with the longest query word; the others are checked per id
+        String longest = CustomerSearch.longest(queryWords);
+        var found = new LinkedHashSet<Integer>();
+        index.readLock().lock();
+        try {
+            idsByWord.visitPrefix(longest, (word, ids) -> {
+                for (int id : ids) {
+                    if (queryWords.size() == 1
+                            || CustomerSearch.namePrefixKey(queryWords, indexed.get(id).name()) != null) {
+                        found.add(id);
+                        if (found.size() == limit) {
+                            return false;
+                        }
+                    }
+                }
+                return true;
+            });
+        } finally {
+            index.readLock().unlock();
+        }
+        return resolve(new ArrayList<>(found));
+    }
+
+    @Override
+    public List<Customer> searchByEmailPrefix(String prefix, int limit) throws DaoException {
+        String normalized = CustomerSearch.normalize(prefix);
+        if (normalized.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        var found = new ArrayList<Integer>();
+        index.readLock().lock();
+        try {
+            for (var emails : idsByEmail.tailMap(normalized, true).entrySet()) {
+                if (!emails.getKey().startsWith(normalized) || found.size() == limit) {
+                    break;
+                }
+                for (int id : sortedIds(emails.getValue())) {
+                    found.add(id);
+                    if (found.size() == limit) {
+                        break;
+                    }
+                }
+            }
+        } finally {
+            index.readLock().unlock();
+        }
+        return resolve(found);
+    }
+
+    @Override
+    public List<Customer> searchByName(String name, int limit) throws DaoException {
+        var queryWords = CustomerSearch.words(name);
+        if (queryWords.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        List<Integer> found;
+        index.readLock().lock();
+        try {
+            found = fuzzySearch(queryWords, limit);
+        } finally {
+            index.readLock().unlock();
+        }
+        return resolve(found);
+    }
+
+    private List<Integer> fuzzySearch(List<String> queryWords, int limit) {
+        // the query word whose matching words have the fewest ids drives the search
+        List<int[]>[] driver = null;
+        long driverIds = Long.MAX_VALUE;
+        for (String queryWord : queryWords) {
+            var byDistance = idsByWord.match(queryWord, CustomerSearch.maxTypos(queryWord));
+            long ids = 0;
+            for (var sameDistance : byDistance) {
+                for (int[] wordIds : sameDistance) {
+                    ids += wordIds.length;
+                }
+            }
+            if (ids == 0) {
+                return List.of();
+            }
+            if (ids < driverIds) {
+                driver = byDistance;
+                driverIds = ids;
+            }
+        }
+
+        // the ids of the driver's words are visited by distance, so an id is seen
+        // first through its closest word, and its total score is at least that distance
+        var seen = new IntHashMap<Boolean>();
+        long[] hits = new long[16]; // score in the high int, id in the low int
+        int hitCount = 0;
+        for (int distance = 0; distance < driver.length; distance++) {
+            for (int[] wordIds : driver[distance]) {
+                for (int id : wordIds) {
+                    if (seen.put(id, PRESENT) != null) {
+                        continue;
+                    }
+                    int score = queryWords.size() == 1
+                            ? distance
+                            : CustomerSearch.fuzzyScore(queryWords, indexed.get(id).name());
+                    if (score >= 0) {
+                        if (hitCount == hits.length) {
+                            hits = Arrays.copyOf(hits, hitCount * 2);
+                        }
+                        hits[hitCount++] = ((long) score << 32) | id;
+                    }
+                }
+            }
+            // anything not seen yet scores more than this distance
+            int settled = 0;
+            for (int i = 0; i < hitCount; i++) {
+                if ((int) (hits[i] >>> 32) <= distance) {
+                    settled++;
+                }
+            }
+            if (settled >= limit) {
+                break;
+            }
+        }
+
+        Arrays.sort(hits, 0, hitCount);
+        var found = new ArrayList<Integer>(Math.min(limit, hitCount));
+        for (int i = 0; i < hitCount && found.size() < limit; i++) {
+            found.add((int) hits[i]);
+        }
+        return found;
+    }
+
+    @Override
+    public Customer getById(int id) throws DaoException {
+        return dao.getById(id);
+    }
+
+    @Override
+    public List<Customer> getAll() throws DaoException {
+        return dao.getAll();
+    }
+
+    @Override
+    public List<Customer> getPage(int afterId, int limit) throws DaoException {
+        return dao.getPage(afterId, limit);
+    }
+
+    @Override
+    public Stream<Customer> streamAll() throws DaoException {
+        return dao.streamAll();
+    }
+
+    @Override
+    public Customer getByEmail(String email) throws DaoException {
+        return dao.getByEmail(email);
+    }
+
+    @Override
+    public Customer getByPhone(String phone) throws DaoException {
+        return dao.getByPhone(phone);
+    }
+
+    @Override
+    public List<Customer> getByCity(String city) throws DaoException {
+        return dao.getByCity(city);
+    }
+
+    @Override
+    public void close() throws DaoException {
+        dao.close();
+    }
+}
@@ -0,0 +1,521 @@
+package com.targetindia.miniproject.dao;
+
+import com.targetindia.miniproject.model.Customer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * A {@link CustomerDao} that partitions the customers across several
+ * backing daos, the shards, so that no single file or database has to hold,
+ * load or rewrite all of them.
+ * <p>
+ * Every shard numbers its customers on its own, and two databases may well
+ * hand out the same id, so the id seen by the callers encodes both:
+ * customer {@code local} of shard {@code s} out of {@code n} gets the id
+ * {@code local * n + s}. The shard of a customer is its id modulo
+ * {@code n}, and a getById, update or delete goes to that shard alone. New
+ * customers are spread over the shards in turn. The shards get copies of
+ * the customers with their own ids, and what they return is copied back
+ * with the outside id.
+ * <p>
+ * getAll, getByCity, getPage and the searches ask all shards at once, on a
+ * thread per shard, and merge the answers. getByEmail and getByPhone go to
+ * a single shard through a directory of every email and phone and the shard
+ * that holds it. The directory is built from the shards at startup and kept
+ * up to date by the writes, which is why an update first reads the
+ * customer it replaces; a key that is not in the directory is not looked up
+ * at all. It assumes that emails and phones are unique (see
+ * {@link UniqueKeysCustomerDao}): of two customers sharing a key, it only
+ * knows the shard of the one written last.
+ * <p>
+ * A write that spans several shards, like saveAll, is not atomic: when one
+ * shard fails, the others may have written their part.
+ */
+@Slf4j
+public class ShardedCustomerDao implements CustomerDao, StorageStatistics {
+
+    private static final String PREFIX = "com.targetindia.miniproject.dao.customer-dao.sharded.";
+
+    private final List<CustomerDao> shards;
+    private final ExecutorService executor;
+
+    // email and phone -> index of the shard that holds the customer
+    private final Map<String, Integer> emails = new ConcurrentHashMap<>();
+    private final Map<String, Integer> phones = new ConcurrentHashMap<>();
+
+    // the shard of the next new customer, modulo the number of shards
+    private final AtomicInteger nextShard = new AtomicInteger();
+
+    // the shards configured in dao-config.properties
+    public ShardedCustomerDao() throws DaoException {
+        this(createShards(
+                DaoFactory.getProperty(PREFIX + "shard-impl", CsvFileCustomerDao.class.getName()),
+                DaoFactory.getProperty(PREFIX + "shards", "customers-0.csv,customers-1.csv")));
+    }
+
+    // the shards are closed with this dao; their order must not change
+    // between runs, or the ids would point to the wrong shards
+    public ShardedCustomerDao(List<CustomerDao> shards) throws DaoException {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("at least one shard is needed");
+        }
+        this.shards = List.copyOf(shards);
+        this.executor = Executors.newFixedThreadPool(shards.size(), r -> {
+            var thread = new Thread(r, "customer-shard");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            buildDirectory();
+        } catch (DaoException | RuntimeException e) {
+            close(e);
+            throw e;
+        }
+    }
+
+    // one dao per location, created through its (String) constructor
+    private static List<CustomerDao> createShards(String impl, String locations) throws DaoException {
+        MethodHandle constructor;
+        try {
+            var cls = Class.forName(impl);
+            var lookup = MethodHandles.publicLookup();
+            try {
+                // the file backed daos also take the durability settings
+                constructor = MethodHandles.insertArguments(lookup.findConstructor(cls,
+                                MethodType.methodType(void.class, String.class, GroupCommitConfig.class)),
+                        1, GroupCommitConfig.fromDaoConfig());
+            } catch (NoSuchMethodException e) {
+                constructor = lookup.findConstructor(cls, MethodType.methodType(void.class, String.class));
+            }
+            constructor = constructor.asType(MethodType.methodType(CustomerDao.class, String.class));
+        } catch (ReflectiveOperationException e) {
+            throw new DaoException(e);
+        }
+        var shards = new ArrayList<CustomerDao>();
+        try {
+            for (String location : locations.split(",")) {
+                shards.add((CustomerDao) constructor.invokeExact(location.trim()));
+            }
+            return shards;
+        } catch (Throwable e) {
+            for (var shard : shards) {
+                try {
+                    shard.close();
+                } catch (DaoException closeError) {
+                    e.addSuppressed(closeError);
+                }
+            }
+            if (e instanceof DaoException daoException) {
+                throw daoException;
+            }
+            if (e instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e instanceof Error error) {
+                throw error;
+            }
+            throw new DaoException(e);
+        }
+    }
+
+    private void buildDirectory() throws DaoException {
+        long start = System.nanoTime();
+        onAllShards((shard, index) -> {
+            try (var customers = shard.streamAll()) {
+                customers.forEach(customer -> addKeys(customer, index));
+            }
+            return null;
+        });
+        log.info("built the email/phone directory of {} shards ({} emails, {} phones) in {} ms",
+                shards.size(), emails.size(), phones.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    // Ids
+
+    private int shardOf(int id) {
+        return Math.floorMod(id, shards.size());
+    }
+
+    private int localId(int id) {
+        return Math.floorDiv(id, shards.size());
+    }
+
+    // throws an ArithmeticException when the shard's id does not fit
+    private int globalId(int localId, int shard) {
+        return Math.addExact(Math.multiplyExact(localId, shards.size()), shard);
+    }
+
+    // the customer as the shard sees it
+    private static Customer toShard(Customer customer, Integer localId) {
+        return new Customer(localId, customer.getName(), customer.getCity(),
+                customer.getEmail(), customer.getPhone());
+    }
+
+    // the customer of a shard as the callers see it
+    private Customer fromShard(Customer customer, int shard) {
+        if (customer == null) {
+            return null;
+        }
+        return new Customer(globalId(customer.getId(), shard), customer.getName(), customer.getCity(),
+                customer.getEmail(), customer.getPhone());
+    }
+
+    private List<Customer> fromShard(List<Customer> customers, int shard) {
+        var result = new ArrayList<Customer>(customers.size());
+        for (var customer : customers) {
+            result.add(fromShard(customer, shard));
+        }
+        return result;
+    }
+
+    // Directory
+
+    private void addKeys(Customer customer, int shard) {
+        if (customer.getEmail() != null) {
+            emails.put(customer.getEmail(), shard);
+        }
+        if (customer.getPhone() != null) {
+            phones.put(customer.getPhone(), shard);
+        }
+    }
+
+    private void removeKeys(Customer customer, int shard) {
+        removeKeys(customer.getEmail(), customer.getPhone(), shard);
+    }
+
+    private void removeKeys(String email, String phone, int shard) {
+        if (email != null) {
+            emails.remove(email, shard);
+        }
+        if (phone != null) {
+            phones.remove(phone, shard);
+        }
+    }
+
+    // the keys of a customer before an update, read from its shard
+    private record Keys(String email, String phone) {
+
+        static Keys of(Customer customer) {
+            return customer == null ? new Keys(null, null) : new Keys(customer.getEmail(), customer.getPhone());
+        }
+
+        // drops the keys that the updated customer no longer has
+        void replacedBy(Customer updated, ShardedCustomerDao dao, int shard) {
+            dao.removeKeys(Objects.equals(email, updated.getEmail()) ? null : email,
+                    Objects.equals(phone, updated.getPhone()) ? null : phone, shard);
+            dao.addKeys(updated, shard);
+        }
+    }
+
+    // Scatter/gather
+
+    private interface ShardCall<T> {
+        T call(CustomerDao shard, int index) throws DaoException;
+    }
+
+    // runs the call on every shard at once; the results are in shard order
+    private <T> List<T> onAllShards(ShardCall<T> call) throws DaoException {
+        var futures = new ArrayList<Future<T>>(shards.size());
+        for (int i = 0; i < shards.size(); i++) {
+            int index = i;
+            futures.add(executor.submit(() -> call.call(shards.get(index), index)));
+        }
+        var results = new ArrayList<T>(shards.size());
+        DaoException error = null;
+        // waits for all of them, so that nothing is still running when this returns
+        for (var future : futures) {
+            try {
+                results.add(future.get());
+            } catch (ExecutionException e) {
+                var cause = e.getCause() instanceof DaoException daoException
+                        ? daoException : new DaoException(e.getCause());
+                if (error == null) {
+                    error = cause;
+                } else {
+                    error.addSuppressed(cause);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futures.forEach(f -> f.cancel(true));
+                throw new DaoException(e);
+            }
+        }
+        if (error != null) {
+            throw error;
+        }
+        return results;
+    }
+
+    private List<Customer> concat(List<List<Customer>> lists) {
+        var result = new ArrayList<Customer>(lists.stream().mapToInt(List::size).sum());
+        lists.forEach(result::addAll);
+        return result;
+    }
+
+    // CRUD
+
+    @Override
+    public Customer save(Customer customer) throws DaoException {
+        int shard = Math.floorMod(nextShard.getAndIncrement(), shards.size());
+        var saved = shards.get(shard).save(toShard(customer, null));
+        customer.setId(globalId(saved.getId(), shard));
+        addKeys(customer, shard);
+        return customer;
+    }
+
+    @Override
+    public Customer getById(int id) throws DaoException {
+        int shard = shardOf(id);
+        return fromShard(shards.get(shard).getById(localId(id)), shard);
+    }
+
+    @Override
+    public void update(Customer customer) throws DaoException {
+        int shard = shardOf(customer.getId());
+        int localId = localId(customer.getId());
+        var old = Keys.of(shards.get(shard).getById(localId));
+        shards.get(shard).update(toShard(customer, localId));
+        old.replacedBy(customer, this, shard);
+    }
+
+    @Override
+    public Customer deleteById(int id) throws DaoException {
+        int shard = shardOf(id);
+        var deleted = shards.get(shard).deleteById(localId(id));
+        if (deleted != null) {
+            removeKeys(deleted, shard);
+        }
+        return fromShard(deleted, shard);
+    }
+
+    // Batch operations
+    // each shard writes its part of the batch as one batch of its own
+
+    @Override
+    public List<Customer> saveAll(List<Customer> customers) throws DaoException {
+        if (customers.isEmpty()) {
+            return customers;
+        }
+        int n = shards.size();
+        int first = nextShard.getAndAdd(customers.size());
+        var batches = new ArrayList<List<Customer>>(n);
+        var positions = new ArrayList<List<Integer>>(n);
+        for (int i = 0; i < n; i++) {
+            batches.add(new ArrayList<>());
+            positions.add(new ArrayList<>());
+        }
+        for (int i = 0; i < customers.size(); i++) {
+            int shard = Math.floorMod(first + i, n);
+            batches.get(shard).add(toShard(customers.get(i), null));
+            positions.get(shard).add(i);
+        }
+        var saved = onAllShards((shard, index) -> batches.get(index).isEmpty()
+                ? List.<Customer>of() : shard.saveAll(batches.get(index)));
+        for (int shard = 0; shard < n; shard++) {
+            for (int i = 0; i < saved.get(shard).size(); i++) {
+                var customer = customers.get(positions.get(shard).get(i));
+                customer.setId(globalId(saved.get(shard).get(i).getId(), shard));
+                addKeys(customer, shard);
+            }
+        }
+        return customers;
+    }
+
+    @Override
+    public void updateAll(List<Customer> customers) throws DaoException {
+        if (customers.isEmpty()) {
+            return;
+        }
+        var batches = new ArrayList<List<Customer>>(shards.size());
+        for (int i = 0; i < shards.size(); i++) {
+            batches.add(new ArrayList<>());
+        }
+        for (var customer : customers) {
+            batches.get(shardOf(customer.getId())).add(toShard(customer, localId(customer.getId())));
+        }
+        var old = onAllShards((shard, index) -> {
+            var keys = new ArrayList<Keys>(batches.get(index).size());
+            for (var customer : batches.get(index)) {
+                keys.add(Keys.of(shard.getById(customer.getId())));
+            }
+            if (!batches.get(index).isEmpty()) {
+                shard.updateAll(batches.get(index));
+            }
+            return keys;
+        });
+        var next = new int[shards.size()];
+        for (var customer : customers) {
+            int shard = shardOf(customer.getId());
+            old.get(shard).get(next[shard]++).replacedBy(customer, this, shard);
+        }
+    }
+
+    @Override
+    public List<Customer> deleteAllById(List<Integer> ids) throws DaoException {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        var batches = new ArrayList<List<Integer>>(shards.size());
+        var positions = new ArrayList<List<Integer>>(shards.size());
+        for (int i = 0; i < shards.size(); i++) {
+            batches.add(new ArrayList<>());
+            positions.add(new ArrayList<>());
+        }
+        for (int i = 0; i < ids.size(); i++) {
+            int shard = shardOf(ids.get(i));
+            batches.get(shard).add(localId(ids.get(i)));
+            positions.get(shard).add(i);
+        }
+        var deleted = onAllShards((shard, index) -> batches.get(index).isEmpty()
+                ? List.<Customer>of() : shard.deleteAllById(batches.get(index)));
+        // in the order of the ids
+        var result = new Customer[ids.size()];
+        for (int shard = 0; shard < shards.size(); shard++) {
+            for (int i = 0; i < deleted.get(shard).size(); i++) {
+                var customer = deleted.get(shard).get(i);
+                if (customer != null) {
+                    removeKeys(customer, shard);
+                }
+                result[positions.get(shard).get(i)] = fromShard(customer, shard);
+            }
+        }
+        return Arrays.asList(result);
+    }
+
+    // Queries
+
+    // the customers of one shard after another
+    @Override
+    public List<Customer> getAll() throws DaoException {
+        return concat(onAllShards((shard, index) -> fromShard(shard.getAll(), index)));
+    }
+
+    @Override
+    public Customer getByEmail(String email) throws DaoException {
+        Integer shard = email == null ? null : emails.get(email);
+        return shard == null ? null : fromShard(shards.get(shard).getByEmail(email), shard);
+    }
+
+    @Override
+    public Customer getByPhone(String phone) throws DaoException {
+        Integer shard = phone == null ? null : phones.get(phone);
+        return shard == null ? null : fromShard(shards.get(shard).getByPhone(phone), shard);
+    }
+
+    @Override
+    public List<Customer> getByCity(String city) throws DaoException {
+        return concat(onAllShards((shard, index) -> fromShard(shard.getByCity(city), index)));
+    }
+
+    // Bounded-memory queries
+
+    @Override
+    public List<Customer> getPage(int afterId, int limit) throws DaoException {
+        // ids grow with the local ids within a shard, so the page is among the
+        // first limit customers of every shard after the local id of afterId
+        var pages = onAllShards((shard, index) -> fromShard(
+                shard.getPage(Math.floorDiv(afterId - index, shards.size()), limit), index));
+        return concat(pages).stream()
+                .sorted(Comparator.comparing(Customer::getId))
+                .limit(limit)
+                .toList();
+    }
+
+    // the customers of one shard after another; the streams of all shards
+    // are opened right away and closed with this one
+    @Override
+    public Stream<Customer> streamAll() throws DaoException {
+        var streams = new ArrayList<Stream<Customer>>(shards.size());
+        try {
+            for (int i = 0; i < shards.size(); i++) {
+                int shard = i;
+                streams.add(shards.get(shard).streamAll().map(customer -> fromShard(customer, shard)));
+            }
+        } catch (DaoException | RuntimeException e) {
+            streams.forEach(Stream::close);
+            throw e;
+        }
+        return streams.stream()
+                .flatMap(stream -> stream)
+                .onClose(() -> streams.forEach(Stream::close));
+    }
+
+    // Search
+    // every shard returns its best matches, and the best of those are
+    // picked by the same rules again
+
+    @Override
+    public List<Customer> searchByNamePrefix(String prefix, int limit) throws DaoException {
+        var hits = concat(onAllShards((shard, index) -> fromShard(shard.searchByNamePrefix(prefix, limit), index)));
+        return CustomerSearch.scanByNamePrefix(hits.stream(), prefix, limit);
+    }
+
+    @Override
+    public List<Customer> searchByEmailPrefix(String prefix, int limit) throws DaoException {
+        var hits = concat(onAllShards((shard, index) -> fromShard(shard.searchByEmailPrefix(prefix, limit), index)));
+        return CustomerSearch.scanByEmailPrefix(hits.stream(), prefix, limit);
+    }
+
+    @Override
+    public List<Customer> searchByName(String name, int limit) throws DaoException {
+        var hits = concat(onAllShards((shard, index) -> fromShard(shard.searchByName(name, limit), index)));
+        return CustomerSearch.scanByName(hits.stream(), name, limit);
+    }
+
+    // Statistics and lifecycle
+
+    // the sum over the shards that can tell, or -1 if none can
+    @Override
+    public long getBytesWritten() {
+        long bytes = -1;
+        for (var shard : shards) {
+            if (shard instanceof StorageStatistics storage) {
+                bytes = Math.max(bytes, 0) + storage.getBytesWritten();
+            }
+        }
+        return bytes;
+    }
+
+    @Override
+    public void close() throws DaoException {
+        close(null);
+    }
+
+    // closes every shard, even when some of them fail
+    private void close(Exception failure) throws DaoException {
+        executor.shutdown();
+        DaoException error = null;
+        for (var shard : shards) {
+            try {
+                shard.close();
+            } catch (DaoException | RuntimeException e) {
+                if (failure != null) {
+                    failure.addSuppressed(e);
+                } else if (error == null) {
+                    error = e instanceof DaoException daoException ? daoException : new DaoException(e);
+                } else {
+                    error.addSuppressed(e);
+                }
+            }
+        }
+        if (error != null) {
+            throw error;
+        }
+    }
+}
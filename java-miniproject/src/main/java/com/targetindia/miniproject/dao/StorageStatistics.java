@@ -0,0 +1,11 @@
+package com.targetindia.miniproject.dao;
+
+/**
+ * Implemented by the daos that can tell how much they have written to
+ * their store.
+ */
+public interface StorageStatistics {
+
+    // bytes written to files since the dao was created, including rewrites and compactions
+    long getBytesWritten();
+}
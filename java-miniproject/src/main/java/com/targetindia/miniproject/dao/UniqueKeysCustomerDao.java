@@ -0,0 +1,322 @@
+package com.targetindia.miniproject.dao;
+
+import com.targetindia.miniproject.model.Customer;
+import com.targetindia.miniproject.utils.BloomFilter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Decorator that rejects a save or update that would give a customer the
+ * email or phone of another customer, for any {@link CustomerDao}.
+ * <p>
+ * Checking a key needs a lookup, which is a scan in the list and file
+ * backed daos and a query in Jpa. Most keys of a new customer are new, so
+ * the emails and phones in the dao are also put in a {@link BloomFilter}:
+ * when the filter says a key is not there, it is certainly new and the
+ * lookup is skipped; only a possible hit goes to
+ * {@link CustomerDao#getByEmail(String)} or
+ * {@link CustomerDao#getByPhone(String)}. Keys cannot be taken out of a
+ * filter, so a deleted key stays in it until the filters are rebuilt from
+ * {@link CustomerDao#streamAll()}, which happens once more keys were added
+ * than they were sized for. A rebuild that fails keeps the old filters and
+ * is tried again after the next write.
+ * <p>
+ * Saves and updates are serialized, so that no other write can take a key
+ * between its check and the write; reads and deletes are passed through.
+ * {@link #getStats()} counts, per key, how often the lookup was skipped and
+ * how often the filter was wrong.
+ */
+@Slf4j
+public class UniqueKeysCustomerDao implements CustomerDao {
+
+    // the filters are never sized for fewer keys than this
+    private static final long MIN_CAPACITY = 1024;
+
+    private final CustomerDao dao;
+    private final double falsePositiveRate;
+    private final KeyFilter emails;
+    private final KeyFilter phones;
+
+    private final ReentrantLock writes = new ReentrantLock();
+
+    /**
+     * What the filter of one key did.
+     *
+     * @param checks                    keys checked
+     * @param skippedLookups            keys the filter knew to be new
+     * @param lookups                   keys looked up in the dao
+     * @param falsePositives            lookups that found no customer
+     * @param conflicts                 lookups that found another customer
+     * @param expectedFalsePositiveRate the rate the filter should have now, from its bits
+     */
+    public record KeyStats(long checks, long skippedLookups, long lookups, long falsePositives,
+                           long conflicts, double expectedFalsePositiveRate) {
+
+        // the share of the new keys that were looked up anyway
+        public double falsePositiveRate() {
+            long newKeys = skippedLookups + falsePositives;
+            return newKeys == 0 ? 0 : (double) falsePositives / newKeys;
+        }
+    }
+
+    private interface Lookup {
+        Customer find(String key) throws DaoException;
+    }
+
+    private static class KeyFilter {
+        final String name;
+        final Lookup lookup;
+        BloomFilter filter;
+        long capacity;
+        long added;
+
+        long checks;
+        long skippedLookups;
+        long lookups;
+        long falsePositives;
+        long conflicts;
+
+        KeyFilter(String name, Lookup lookup) {
+            this.name = name;
+            this.lookup = lookup;
+        }
+
+        void replace(BloomFilter filter, long capacity, long added) {
+            this.filter = filter;
+            this.capacity = capacity;
+            this.added = added;
+        }
+
+        void add(String key) {
+            if (key != null) {
+                filter.put(key);
+                added++;
+            }
+        }
+
+        // throws if the key belongs to a customer other than the given one
+        void check(String key, Customer customer) throws DaoException {
+            if (key == null) {
+                return;
+            }
+            checks++;
+            if (!filter.mightContain(key)) {
+                skippedLookups++;
+                return;
+            }
+            lookups++;
+            var owner = lookup.find(key);
+            if (owner == null) {
+                falsePositives++;
+            } else if (!owner.getId().equals(customer.getId())) {
+                conflicts++;
+                throw new DaoException(name + " " + key + " already exists for id " + owner.getId());
+            }
+        }
+
+        KeyStats stats() {
+            return new KeyStats(checks, skippedLookups, lookups, falsePositives, conflicts,
+                    filter.expectedFalsePositiveRate());
+        }
+    }
+
+    public UniqueKeysCustomerDao(CustomerDao dao, double falsePositiveRate) throws DaoException {
+        this.dao = dao;
+        this.falsePositiveRate = falsePositiveRate;
+        this.emails = new KeyFilter("email", dao::getByEmail);
+        this.phones = new KeyFilter("phone", dao::getByPhone);
+        rebuild();
+    }
+
+    // sizes the filters for twice the customers there are now, and fills them;
+    // the new filters replace the old ones only once they hold every key, so a
+    // failure leaves the old filters in place
+    private void rebuild() throws DaoException {
+        long start = System.nanoTime();
+        long count;
+        try (var customers = dao.streamAll()) {
+            count = customers.count();
+        } catch (RuntimeException e) {
+            throw new DaoException(e);
+        }
+        long capacity = Math.max(MIN_CAPACITY, 2 * count);
+        var emailFilter = new BloomFilter(capacity, falsePositiveRate);
+        var phoneFilter = new BloomFilter(capacity, falsePositiveRate);
+        long[] added = new long[2];
+        try (var customers = dao.streamAll()) {
+            customers.forEach(customer -> {
+                if (customer.getEmail() != null) {
+                    emailFilter.put(customer.getEmail());
+                    added[0]++;
+                }
+                if (customer.getPhone() != null) {
+                    phoneFilter.put(customer.getPhone());
+                    added[1]++;
+                }
+            });
+        } catch (RuntimeException e) {
+            throw new DaoException(e);
+        }
+        emails.replace(emailFilter, capacity, added[0]);
+        phones.replace(phoneFilter, capacity, added[1]);
+        log.info("built the email and phone filters for {} customers ({} bits, {} hashes each) in {} ms",
+                count, emailFilter.bitSize(), emailFilter.hashCount(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    public Map<String, KeyStats> getStats() {
+        writes.lock();
+        try {
+            var stats = new LinkedHashMap<String, KeyStats>();
+            stats.put(emails.name, emails.stats());
+            stats.put(phones.name, phones.stats());
+            return stats;
+        } finally {
+            writes.unlock();
+        }
+    }
+
+    private interface Write<T> {
+        T write() throws DaoException;
+    }
+
+    // checks the keys of the customers, runs the write and adds the keys to the filters
+    private <T> T write(List<Customer> customers, Write<T> write) throws DaoException {
+        writes.lock();
+        try {
+            var batchEmails = new HashMap<String, Customer>();
+            var batchPhones = new HashMap<String, Customer>();
+            for (var customer : customers) {
+                emails.check(customer.getEmail(), customer);
+                phones.check(customer.getPhone(), customer);
+                checkBatch(batchEmails, emails.name, customer.getEmail(), customer);
+                checkBatch(batchPhones, phones.name, customer.getPhone(), customer);
+            }
+            T result = write.write();
+            for (var customer : customers) {
+                emails.add(customer.getEmail());
+                phones.add(customer.getPhone());
+            }
+            if (emails.added > emails.capacity || phones.added > phones.capacity) {
+                try {
+                    rebuild();
+                } catch (DaoException e) {
+                    // the write is done; the old filters have more false positives
+                    // than they were sized for, but still hold every key
+                    log.warn("could not rebuild the email and phone filters, keeping the old ones", e);
+                }
+            }
+            return result;
+        } finally {
+            writes.unlock();
+        }
+    }
+
+    // two customers of one batch cannot share a key either
+    private static void checkBatch(Map<String, Customer> batch, String name, String key, Customer customer)
+            throws DaoException {
+        if (key == null) {
+            return;
+        }
+        var other = batch.putIfAbsent(key, customer);
+        if (other != null && (customer.getId() == null || !customer.getId().equals(other.getId()))) {
+            throw new DaoException(name + " " + key + " appears more than once in the batch");
+        }
+    }
+
+    @Override
+    public Customer save(Customer customer) throws DaoException {
+        return write(List.of(customer), () -> dao.save(customer));
+    }
+
+    @Override
+    public void update(Customer customer) throws DaoException {
+        write(List.of(customer), () -> {
+            dao.update(customer);
+            return null;
+        });
+    }
+
+    @Override
+    public List<Customer> saveAll(List<Customer> customers) throws DaoException {
+        return write(customers, () -> dao.saveAll(customers));
+    }
+
+    @Override
+    public void updateAll(List<Customer> customers) throws DaoException {
+        write(customers, () -> {
+            dao.updateAll(customers);
+            return null;
+        });
+    }
+
+    @Override
+    public Customer deleteById(int id) throws DaoException {
+        return dao.deleteById(id);
+    }
+
+    @Override
+    public List<Customer> deleteAllById(List<Integer> ids) throws DaoException {
+        return dao.deleteAllById(ids);
+    }
+
+    @Override
+    public Customer getById(int id) throws DaoException {
+        return dao.getById(id);
+    }
+
+    @Override
+    public List<Customer> getAll() throws DaoException {
+        return dao.getAll();
+    }
+
+    @Override
+    public List<Customer> getPage(int afterId, int limit) throws DaoException {
+        return dao.getPage(afterId, limit);
+    }
+
+    @Override
+    public Stream<Customer> streamAll() throws DaoException {
+        return dao.streamAll();
+    }
+
+    @Override
+    public Customer getByEmail(String email) throws DaoException {
+        return dao.getByEmail(email);
+    }
+
+    @Override
+    public Customer getByPhone(String phone) throws DaoException {
+        return dao.getByPhone(phone);
+    }
+
+    @Override
+    public List<Customer> getByCity(String city) throws DaoException {
+        return dao.getByCity(city);
+    }
+
+    @Override
+    public List<Customer> searchByNamePrefix(String prefix, int limit) throws DaoException {
+        return dao.searchByNamePrefix(prefix, limit);
+    }
+
+    @Override
+    public List<Customer> searchByEmailPrefix(String prefix, int limit) throws DaoException {
+        return dao.searchByEmailPrefix(prefix, limit);
+    }
+
+    @Override
+    public List<Customer> searchByName(String name, int limit) throws DaoException {
+        return dao.searchByName(name, limit);
+    }
+
+    @Override
+    public void close() throws DaoException {
+        dao.close();
+    }
+}
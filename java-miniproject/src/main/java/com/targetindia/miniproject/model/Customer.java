@@ -4,18 +4,33 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name="customers")
+@Table(name="customers", indexes = {
+        @Index(name = "idx_customers_phone", columnList = "phone", unique = true),
+        @Index(name = "idx_customers_city", columnList = "city")
+})
+@NamedQuery(name = "Customer.findAll", query = "from Customer c order by c.id")
+@NamedQuery(name = "Customer.findByPhone", query = "from Customer c where c.phone = :phone")
+@NamedQuery(name = "Customer.findByCity", query = "from Customer c where c.city = :city order by c.id")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "customer")
+@NaturalIdCache(region = "customer-by-email")
 public class Customer {
     @Id
     @GeneratedValue(generator = "increment")
     private Integer id;
     private String name;
     private String city;
+    // natural ids get a unique index of their own
+    @NaturalId(mutable = true)
     private String email;
     private String phone;
 }
@@ -0,0 +1,158 @@
+package com.targetindia.miniproject.service;
+
+import com.targetindia.miniproject.dao.CustomerDao;
+import com.targetindia.miniproject.dao.DaoException;
+import com.targetindia.miniproject.dao.DaoFactory;
+import com.targetindia.miniproject.model.Customer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+
+/**
+ * Non-blocking counterpart of {@link CustomerManager}. Every call runs on its
+ * own thread and returns a {@link CompletableFuture}, which completes
+ * exceptionally with a {@link ServiceException} when the dao fails.
+ * <p>
+ * Tasks run on virtual threads when the JVM has them (Java 21 and later) and
+ * on a fixed pool of {@code maxConcurrency} daemon threads otherwise. Either
+ * way, at most {@code maxConcurrency} calls are inside the dao at once, so a
+ * backend with a limited number of connections is not overrun.
+ */
+@Slf4j
+public class AsyncCustomerManager implements AutoCloseable {
+
+    private final CustomerDao dao;
+    private final Semaphore permits;
+    private final ExecutorService executor;
+
+    public AsyncCustomerManager() throws ServiceException {
+        try {
+            this.dao = DaoFactory.getCustomerDao();
+        } catch (DaoException e) {
+            throw new ServiceException(e);
+        }
+        this.permits = new Semaphore(DaoFactory.getCustomerDaoMaxConcurrency());
+        this.executor = newExecutor(DaoFactory.getCustomerDaoMaxConcurrency());
+    }
+
+    public AsyncCustomerManager(CustomerDao dao, int maxConcurrency) {
+        this.dao = dao;
+        this.permits = new Semaphore(maxConcurrency);
+        this.executor = newExecutor(maxConcurrency);
+    }
+
+    private static ExecutorService newExecutor(int maxConcurrency) {
+        try {
+            // looked up reflectively so that this still compiles for Java 17
+            return (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor")
+                    .invoke(null);
+        } catch (ReflectiveOperationException e) {
+            // platform threads are too expensive to park one per waiting call
+            log.debug("virtual threads are not available, using a fixed thread pool");
+            return Executors.newFixedThreadPool(maxConcurrency, r -> {
+                var thread = new Thread(r, "async-customer-manager");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    private interface DaoCall<T> {
+        T call() throws DaoException;
+    }
+
+    private <T> CompletableFuture<T> submit(DaoCall<T> call) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CompletionException(new ServiceException(e));
+            }
+            try {
+                return call.call();
+            } catch (DaoException | RuntimeException e) {
+                throw new CompletionException(new ServiceException(e));
+            } finally {
+                permits.release();
+            }
+        }, executor);
+    }
+
+    public CompletableFuture<List<Customer>> getAll() {
+        return submit(dao::getAll);
+    }
+
+    public CompletableFuture<Customer> addNewCustomer(Customer customer) {
+        return submit(() -> dao.save(customer));
+    }
+
+    public CompletableFuture<List<Customer>> addNewCustomers(List<Customer> customers) {
+        return submit(() -> dao.saveAll(customers));
+    }
+
+    public CompletableFuture<Customer> getById(int id) {
+        return submit(() -> dao.getById(id));
+    }
+
+    public CompletableFuture<Customer> getByEmail(String email) {
+        return submit(() -> dao.getByEmail(email));
+    }
+
+    public CompletableFuture<Customer> getByPhone(String phone) {
+        return submit(() -> dao.getByPhone(phone));
+    }
+
+    public CompletableFuture<List<Customer>> getByCity(String city) {
+        return submit(() -> dao.getByCity(city));
+    }
+
+    // looks up all the emails concurrently; an email the dao finds no customer for (it
+    // returns null) is left out of the map, while any failure fails the whole future
+    public CompletableFuture<Map<String, Customer>> getByEmails(Collection<String> emails) {
+        return fanOut(emails, this::getByEmail);
+    }
+
+    public CompletableFuture<Map<String, Customer>> getByPhones(Collection<String> phones) {
+        return fanOut(phones, this::getByPhone);
+    }
+
+    public CompletableFuture<Map<Integer, Customer>> getByIds(Collection<Integer> ids) {
+        return fanOut(ids, this::getById);
+    }
+
+    private <K> CompletableFuture<Map<K, Customer>> fanOut(
+            Collection<K> keys,
+            Function<K, CompletableFuture<Customer>> lookup) {
+        var futures = new LinkedHashMap<K, CompletableFuture<Customer>>();
+        for (var key : keys) {
+            futures.computeIfAbsent(key, lookup);
+        }
+        return CompletableFuture.allOf(futures.values().toArray(CompletableFuture[]::new))
+                .thenApply(done -> {
+                    var customers = new LinkedHashMap<K, Customer>();
+                    futures.forEach((key, future) -> {
+                        var customer = future.join();
+                        if (customer != null) {
+                            customers.put(key, customer);
+                        }
+                    });
+                    return customers;
+                });
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+}
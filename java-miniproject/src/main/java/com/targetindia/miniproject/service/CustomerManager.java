@@ -1,11 +1,14 @@
 package com.targetindia.miniproject.service;
 
+import com.targetindia.miniproject.dao.ColumnarCustomerTable;
 import com.targetindia.miniproject.dao.CustomerDao;
+import com.targetindia.miniproject.dao.CustomerQueries;
 import com.targetindia.miniproject.dao.DaoException;
 import com.targetindia.miniproject.dao.DaoFactory;
 import com.targetindia.miniproject.model.Customer;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 public class CustomerManager {
 
@@ -36,6 +39,25 @@ public class CustomerManager {
         }
     }
 
+    public List<Customer> getPage(int afterId, int limit) throws ServiceException {
+        try {
+            return dao.getPage(afterId, limit);
+        }
+        catch (DaoException e){
+            throw new ServiceException(e);
+        }
+    }
+
+    // the caller must close the stream
+    public Stream<Customer> streamAll() throws ServiceException {
+        try {
+            return dao.streamAll();
+        }
+        catch (DaoException e){
+            throw new ServiceException(e);
+        }
+    }
+
     public Customer addNewCustomer(Customer customer) throws ServiceException{
         try{
             // we can do some validation here before saving.
@@ -46,4 +68,71 @@ public class CustomerManager {
             throw new ServiceException(e);
         }
     }
+
+    public List<Customer> addNewCustomers(List<Customer> customers) throws ServiceException {
+        try {
+            // saved as one batch; see CustomerDao.saveAll
+            return dao.saveAll(customers);
+        }
+        catch (DaoException e){
+            throw new ServiceException(e);
+        }
+    }
+
+    public void updateCustomers(List<Customer> customers) throws ServiceException {
+        try {
+            dao.updateAll(customers);
+        }
+        catch (DaoException e){
+            throw new ServiceException(e);
+        }
+    }
+
+    public List<Customer> deleteCustomers(List<Integer> ids) throws ServiceException {
+        try {
+            return dao.deleteAllById(ids);
+        }
+        catch (DaoException e){
+            throw new ServiceException(e);
+        }
+    }
+
+    // snapshot of all the customers for analytic queries (counts, prefix searches);
+    // it does not see later changes
+    public CustomerQueries getCustomerTable() throws ServiceException {
+        try {
+            return ColumnarCustomerTable.of(dao);
+        }
+        catch (DaoException e){
+            throw new ServiceException(e);
+        }
+    }
+
+    // interactive search: name and email prefixes, and names with typos
+    public List<Customer> searchByNamePrefix(String prefix, int limit) throws ServiceException {
+        try {
+            return dao.searchByNamePrefix(prefix, limit);
+        }
+        catch (DaoException e){
+            throw new ServiceException(e);
+        }
+    }
+
+    public List<Customer> searchByEmailPrefix(String prefix, int limit) throws ServiceException {
+        try {
+            return dao.searchByEmailPrefix(prefix, limit);
+        }
+        catch (DaoException e){
+            throw new ServiceException(e);
+        }
+    }
+
+    public List<Customer> searchByName(String name, int limit) throws ServiceException {
+        try {
+            return dao.searchByName(name, limit);
+        }
+        catch (DaoException e){
+            throw new ServiceException(e);
+        }
+    }
 }
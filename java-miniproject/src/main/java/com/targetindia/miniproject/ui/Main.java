@@ -7,10 +7,14 @@ import com.targetindia.miniproject.utils.KeyboardUtil;
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.InputMismatchException;
+import java.util.List;
 
 @Slf4j
 public class Main {
 
+    // most customers a search lists
+    static final int SEARCH_LIMIT = 20;
+
     // this has a dependency on the CustomerManager
     CustomerManager cm;
 
@@ -30,7 +34,7 @@ public class Main {
         System.out.println("0. Exit");
         System.out.println("1. List all customers");
         System.out.println("2. Add a new customer");
-        System.out.println("3. Search customer by id");
+        System.out.println("3. Search customers by name or email");
         System.out.println("4. Search customer by email");
         System.out.println("5. Search customer by phone");
         System.out.println("6. Search customers by city");
@@ -66,7 +70,32 @@ public class Main {
     }
 
     void searchAndDisplayCustomer() {
-        System.out.println("searching for customer..");
+        try {
+            String text = KeyboardUtil.getString("Name or email (or the start of it): ").trim();
+            if (text.isEmpty()) {
+                return;
+            }
+            List<Customer> customers;
+            if (text.contains("@")) {
+                customers = cm.searchByEmailPrefix(text, SEARCH_LIMIT);
+            } else {
+                customers = cm.searchByNamePrefix(text, SEARCH_LIMIT);
+                if (customers.isEmpty()) {
+                    // maybe a typo
+                    customers = cm.searchByName(text, SEARCH_LIMIT);
+                }
+            }
+            if (customers.isEmpty()) {
+                System.out.println("No matching customers found.");
+                return;
+            }
+            printHeader();
+            customers.forEach(this::printRow);
+            printFooter();
+        } catch (ServiceException e) {
+            System.out.println("Something went wrong. Check the logs or contact tech support");
+            log.warn("there was an error while searching for customers", e);
+        }
     }
 
     void addNewCustomerData() {
@@ -93,27 +122,35 @@ public class Main {
     }
 
     void displayCustomerList() {
-        try {
-            var customers = cm.getAll();
-            System.out.printf("%4s|%-20s|%-15s|%-25s|%-15s\n", "ID", "Name", "City", "Email", "Phone");
-            System.out.println("-----------------------------------------------------------------------------------");
-            for(var c: customers){
-                System.out.printf("%4d|%-20s|%-15s|%-25s|%-15s\n",
-                        c.getId(),
-                        c.getName(),
-                        c.getCity(),
-                        c.getEmail(),
-                        c.getPhone());
-            }
-            System.out.println("-----------------------------------------------------------------------------------");
-
-
+        // streamed, so that the whole list is never held in memory
+        try (var customers = cm.streamAll()) {
+            printHeader();
+            customers.forEach(this::printRow);
+            printFooter();
         } catch (ServiceException e) {
             System.out.println("Something went wrong. Check the logs or contact tech support");
-            log.warn("there was an error while calling cm.getAll()", e);
+            log.warn("there was an error while calling cm.streamAll()", e);
         }
     }
 
+    void printHeader() {
+        System.out.printf("%4s|%-20s|%-15s|%-25s|%-15s\n", "ID", "Name", "City", "Email", "Phone");
+        System.out.println("-----------------------------------------------------------------------------------");
+    }
+
+    void printRow(Customer c) {
+        System.out.printf("%4d|%-20s|%-15s|%-25s|%-15s\n",
+                c.getId(),
+                c.getName(),
+                c.getCity(),
+                c.getEmail(),
+                c.getPhone());
+    }
+
+    void printFooter() {
+        System.out.println("-----------------------------------------------------------------------------------");
+    }
+
     public static void main(String[] args) {
         log.trace("starting the app...");
         new Main().start();
@@ -0,0 +1,406 @@
+package com.targetindia.miniproject.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Streaming CSV reader that decodes a channel through a fixed pair of
+ * byte/char buffers and scans the chars directly, instead of going through
+ * {@code readLine()} and {@code String.split(",")}.
+ * <p>
+ * Fields may be quoted; a quoted field can contain commas, line breaks and
+ * doubled quotes ({@code ""}). The chars of the current row are kept in one
+ * reused array, and a {@link String} is only created when a field is asked
+ * for with {@link #getString(int)}; {@link #getInt(int)} parses in place.
+ * <pre>
+ * try (var in = new CsvReader(path)) {
+ *     while (in.next()) {
+ *         int id = in.getInt(0);
+ *         String name = in.getString(1);
+ *     }
+ * }
+ * </pre>
+ */
+public class CsvReader implements Closeable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    // files smaller than this are not worth splitting
+    private static final long MIN_SPLIT_SIZE = 4 * 1024 * 1024;
+
+    private final ReadableByteChannel channel;
+    private final CharsetDecoder decoder;
+    private final ByteBuffer bytes = ByteBuffer.allocate(BUFFER_SIZE);
+    private final CharBuffer chars = CharBuffer.allocate(BUFFER_SIZE);
+    private boolean endOfInput;
+    private boolean flushed;
+
+    // the current row: its chars, and where each field starts and ends in them
+    private char[] row = new char[256];
+    private int rowLength;
+    private int[] fieldStarts = new int[8];
+    private int[] fieldEnds = new int[8];
+    private int fieldCount;
+
+    private long lines;
+    private long lineNumber;
+    private long rowCount;
+    private boolean unterminatedQuote;
+
+    public CsvReader(Path path) throws IOException {
+        this(FileChannel.open(path, StandardOpenOption.READ), StandardCharsets.UTF_8);
+    }
+
+    // reads only the bytes from start (inclusive) to end (exclusive) of the file
+    public CsvReader(FileChannel channel, long start, long end) {
+        this(new RangeChannel(channel, start, end), StandardCharsets.UTF_8);
+    }
+
+    public CsvReader(ReadableByteChannel channel, Charset charset) {
+        this.channel = channel;
+        this.decoder = charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.chars.flip(); // starts out empty
+    }
+
+    private boolean fill() throws IOException {
+        if (flushed) {
+            return false;
+        }
+        chars.clear();
+        while (true) {
+            if (!endOfInput && channel.read(bytes) < 0) {
+                endOfInput = true;
+            }
+            bytes.flip();
+            var result = decoder.decode(bytes, chars, endOfInput);
+            bytes.compact();
+            if (result.isError()) {
+                result.throwException();
+            }
+            if (endOfInput) {
+                decoder.flush(chars);
+                flushed = true;
+                break;
+            }
+            if (chars.position() > 0) {
+                break;
+            }
+        }
+        chars.flip();
+        return chars.hasRemaining();
+    }
+
+    private int nextChar() throws IOException {
+        if (!chars.hasRemaining() && !fill()) {
+            return -1;
+        }
+        return chars.get();
+    }
+
+    private void append(int c) {
+        if (rowLength == row.length) {
+            row = Arrays.copyOf(row, row.length * 2);
+        }
+        row[rowLength++] = (char) c;
+    }
+
+    private void startField() {
+        if (fieldCount == fieldStarts.length) {
+            fieldStarts = Arrays.copyOf(fieldStarts, fieldCount * 2);
+            fieldEnds = Arrays.copyOf(fieldEnds, fieldCount * 2);
+        }
+        fieldStarts[fieldCount] = rowLength;
+    }
+
+    private void endField() {
+        fieldEnds[fieldCount++] = rowLength;
+    }
+
+    /**
+     * Moves to the next row, skipping blank lines.
+     *
+     * @return false at the end of the input
+     */
+    public boolean next() throws IOException {
+        rowLength = 0;
+        fieldCount = 0;
+        unterminatedQuote = false;
+
+        int c = nextChar();
+        while (c == '\r' || c == '\n') {
+            if (c == '\n') {
+                lines++;
+            }
+            c = nextChar();
+        }
+        if (c < 0) {
+            return false;
+        }
+        lineNumber = lines + 1;
+
+        boolean quoted = false;
+        startField();
+        while (true) {
+            if (c < 0) {
+                unterminatedQuote = quoted;
+                endField();
+                break;
+            }
+            if (quoted) {
+                if (c == '"') {
+                    c = nextChar();
+                    if (c != '"') {
+                        // closing quote; look at the char after it as unquoted
+                        quoted = false;
+                        continue;
+                    }
+                } else if (c == '\n') {
+                    lines++;
+                }
+                append(c);
+            } else if (c == '"' && rowLength == fieldStarts[fieldCount]) {
+                quoted = true;
+            } else if (c == ',') {
+                endField();
+                startField();
+            } else if (c == '\n') {
+                lines++;
+                endField();
+                break;
+            } else if (c != '\r') {
+                append(c);
+            }
+            c = nextChar();
+        }
+        rowCount++;
+        return true;
+    }
+
+    public int getFieldCount() {
+        return fieldCount;
+    }
+
+    public String getString(int field) {
+        checkField(field);
+        return new String(row, fieldStarts[field], fieldEnds[field] - fieldStarts[field]);
+    }
+
+    // parses a decimal int straight from the row buffer
+    public int getInt(int field) {
+        checkField(field);
+        int start = fieldStarts[field];
+        int end = fieldEnds[field];
+        if (start == end) {
+            throw new NumberFormatException("empty field " + field + " at line " + lineNumber);
+        }
+        boolean negative = row[start] == '-';
+        int i = negative || row[start] == '+' ? start + 1 : start;
+        if (i == end) {
+            throw new NumberFormatException("no digits in field " + field + " at line " + lineNumber);
+        }
+        long value = 0;
+        for (; i < end; i++) {
+            int digit = row[i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("not a number in field " + field + " at line " + lineNumber);
+            }
+            value = value * 10 + digit;
+            if (value > Integer.MAX_VALUE + 1L) {
+                throw new NumberFormatException("number too large in field " + field + " at line " + lineNumber);
+            }
+        }
+        value = negative ? -value : value;
+        if (value > Integer.MAX_VALUE) {
+            throw new NumberFormatException("number too large in field " + field + " at line " + lineNumber);
+        }
+        return (int) value;
+    }
+
+    private void checkField(int field) {
+        if (field < 0 || field >= fieldCount) {
+            throw new IndexOutOfBoundsException("row at line " + lineNumber + " has "
+                    + fieldCount + " fields, no field " + field);
+        }
+    }
+
+    // true when the input ended inside a quoted field of the current row
+    public boolean hasUnterminatedQuote() {
+        return unterminatedQuote;
+    }
+
+    // line on which the current row starts (1 based)
+    public long getLineNumber() {
+        return lineNumber;
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    // quotes a value for writing if it contains a comma, a quote or a line break
+    public static String quote(String value) {
+        if (value == null) {
+            return "";
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return '"' + value.replace("\"", "\"\"") + '"';
+            }
+        }
+        return value;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Splits a file into about {@code parts} byte ranges that each start at
+     * the beginning of a row, for reading them in parallel with
+     * {@link #CsvReader(FileChannel, long, long)}.
+     * <p>
+     * A line break inside a quoted field does not end a row, so the quotes in
+     * each part are counted first (in parallel); their running total tells
+     * whether a split point falls inside a quoted field. This is safe for
+     * UTF-8, where '"' and '\n' never occur inside a multi-byte char.
+     *
+     * @return the range boundaries: range i is [result[i], result[i + 1])
+     */
+    public static long[] split(FileChannel channel, int parts) throws IOException {
+        return split(channel, channel.size(), parts);
+    }
+
+    // splits only the first size bytes of the file
+    public static long[] split(FileChannel channel, long size, int parts) throws IOException {
+        if (parts <= 1 || size < MIN_SPLIT_SIZE) {
+            return new long[]{0, size};
+        }
+        long step = size / parts;
+        long[] quotes;
+        try {
+            quotes = IntStream.range(0, parts)
+                    .parallel()
+                    .mapToLong(i -> countQuotes(channel, i * step, i == parts - 1 ? size : (i + 1) * step))
+                    .toArray();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        var boundaries = new ArrayList<Long>();
+        boundaries.add(0L);
+        long quotesBefore = 0;
+        for (int i = 1; i < parts; i++) {
+            quotesBefore += quotes[i - 1];
+            long rowStart = nextRowStart(channel, i * step, size, quotesBefore % 2 == 1);
+            if (rowStart > boundaries.get(boundaries.size() - 1) && rowStart < size) {
+                boundaries.add(rowStart);
+            }
+        }
+        boundaries.add(size);
+        return boundaries.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private static long countQuotes(FileChannel channel, long start, long end) {
+        var buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        long count = 0;
+        try {
+            for (long position = start; position < end; ) {
+                buffer.clear().limit((int) Math.min(BUFFER_SIZE, end - position));
+                int read = channel.read(buffer, position);
+                if (read < 0) {
+                    break;
+                }
+                for (int i = 0; i < read; i++) {
+                    if (buffer.get(i) == '"') {
+                        count++;
+                    }
+                }
+                position += read;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return count;
+    }
+
+    // position right after the first line break at or after from that is not inside quotes
+    private static long nextRowStart(FileChannel channel, long from, long size, boolean inQuotes) throws IOException {
+        var buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        long position = from;
+        while (true) {
+            buffer.clear().limit((int) Math.min(BUFFER_SIZE, Math.max(0, size - position)));
+            int read = buffer.hasRemaining() ? channel.read(buffer, position) : -1;
+            if (read < 0) {
+                return size;
+            }
+            for (int i = 0; i < read; i++) {
+                byte b = buffer.get(i);
+                if (b == '"') {
+                    inQuotes = !inQuotes;
+                } else if (b == '\n' && !inQuotes) {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+    }
+
+    // a view of part of a file; positional reads, so ranges can be read concurrently
+    private static class RangeChannel implements ReadableByteChannel {
+        private final FileChannel channel;
+        private long position;
+        private final long end;
+
+        RangeChannel(FileChannel channel, long start, long end) {
+            this.channel = channel;
+            this.position = start;
+            this.end = end;
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            if (position >= end) {
+                return -1;
+            }
+            int limit = dst.limit();
+            dst.limit((int) Math.min(limit, dst.position() + (end - position)));
+            try {
+                int read = channel.read(dst, position);
+                if (read > 0) {
+                    position += read;
+                }
+                return read;
+            } finally {
+                dst.limit(limit);
+            }
+        }
+
+        @Override
+        public boolean isOpen() {
+            return channel.isOpen();
+        }
+
+        // the file channel is shared by all the ranges and closed by its owner
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.targetindia.miniproject.utils;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects items submitted by any number of threads and hands them to a
+ * single flusher thread, which persists them in batches.
+ * <p>
+ * A batch is written as soon as it holds {@code maxBatchSize} items, or
+ * {@code maxDelayMillis} after its first item arrived, whichever comes first.
+ * The future returned by {@link #submit(Object)} completes once the batch
+ * holding the item has been written, so a caller that waits on it gets the
+ * same guarantee as a synchronous write, while concurrent callers share the
+ * cost of one write (and one fsync) per batch.
+ */
+@Slf4j
+public class GroupCommitter<T> implements AutoCloseable {
+
+    public interface BatchWriter<T> {
+        void write(List<T> batch) throws Exception;
+    }
+
+    private record Pending<T>(T item, CompletableFuture<Void> written) {
+    }
+
+    private final BatchWriter<T> writer;
+    private final int maxBatchSize;
+    private final long maxDelayNanos;
+    private final BlockingQueue<Pending<T>> queue = new LinkedBlockingQueue<>();
+    private final Thread flusher;
+
+    // held while closed is checked and an item is queued, so that close()
+    // cannot slip in between and leave the item behind the final drain
+    private final Object submitLock = new Object();
+    private volatile boolean closed;
+
+    public GroupCommitter(String name, BatchWriter<T> writer, int maxBatchSize, long maxDelayMillis) {
+        this.writer = writer;
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+        this.flusher = new Thread(this::run, name);
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    public CompletableFuture<Void> submit(T item) {
+        synchronized (submitLock) {
+            if (closed) {
+                return CompletableFuture.failedFuture(new IllegalStateException("group committer is closed"));
+            }
+            var pending = new Pending<>(item, new CompletableFuture<Void>());
+            queue.add(pending);
+            return pending.written();
+        }
+    }
+
+    private void run() {
+        var batch = new ArrayList<Pending<T>>(maxBatchSize);
+        while (!closed || !queue.isEmpty()) {
+            try {
+                var first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + maxDelayNanos;
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    var next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                batch.forEach(pending -> pending.written().completeExceptionally(e));
+                break;
+            } finally {
+                batch.clear();
+            }
+        }
+
+        // items left behind by an interrupt; once closed is set no more can be queued
+        synchronized (submitLock) {
+            closed = true;
+        }
+        Pending<T> pending;
+        while ((pending = queue.poll()) != null) {
+            pending.written().completeExceptionally(new IllegalStateException("group committer is closed"));
+        }
+    }
+
+    private void flush(List<Pending<T>> batch) {
+        try {
+            writer.write(batch.stream().map(Pending::item).toList());
+            batch.forEach(pending -> pending.written().complete(null));
+        } catch (Exception e) {
+            log.warn("error while writing a batch of {} items", batch.size(), e);
+            batch.forEach(pending -> pending.written().completeExceptionally(e));
+        }
+    }
+
+    // writes whatever is still queued and stops the flusher
+    @Override
+    public void close() {
+        synchronized (submitLock) {
+            closed = true;
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -2,40 +2,142 @@ package com.targetindia.miniproject.utils;
 
 import lombok.extern.slf4j.Slf4j;
 
-import java.io.*;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Hands out unique customer ids.
+ * <p>
+ * Ids are reserved from the seed file in blocks of {@link #BLOCK_SIZE}: the
+ * seed file only stores the high-water mark (the largest id reserved so far),
+ * and it is written before any id of a new block is handed out. Within a
+ * block, ids are allocated with a CAS on an {@link AtomicInteger}, so no
+ * lock or file access is needed on the common path. After a restart the
+ * unused rest of the last block is skipped, so an id is never reused.
+ * <p>
+ * The seed file is replaced by an atomic rename, never rewritten in place.
+ * A seed file that exists but cannot be read makes the class fail to load
+ * rather than start over from 0.
+ */
 @Slf4j
 public final class IdGenerator {
     private IdGenerator() {
     }
 
-    private static int CURRENT_ID = 0;
-    private static String FILENAME = "__seed__";
+    private static final int BLOCK_SIZE = 1000;
+    private static final String FILENAME = "__seed__";
+
+    // next id to be handed out
+    private static final AtomicInteger NEXT_ID = new AtomicInteger();
+
+    // largest id reserved in the seed file; ids up to this one may be handed out
+    private static volatile int RESERVED_ID;
 
     static {
+        int seed = readSeed();
+        RESERVED_ID = seed;
+        NEXT_ID.set(seed + 1);
+    }
 
-        try (
-                FileInputStream file = new FileInputStream(FILENAME);
-                DataInputStream in = new DataInputStream(file);
-        ) {
-            CURRENT_ID = in.readInt();
+    // a missing seed file means no id was handed out yet; one that cannot be
+    // read, or is not exactly one int, stops the class from loading, because
+    // starting over from 0 would hand out ids that are already in use
+    private static int readSeed() {
+        Path path = Path.of(FILENAME);
+        try {
+            // left behind by a crash before the rename; none of its ids was used
+            Files.deleteIfExists(tempPath());
+            if (!Files.exists(path)) {
+                log.info("{} not found, starting ids from 1", path);
+                return 0;
+            }
+            byte[] bytes = Files.readAllBytes(path);
+            if (bytes.length != Integer.BYTES) {
+                throw new IOException(path + " holds " + bytes.length + " bytes instead of " + Integer.BYTES);
+            }
+            int seed = ByteBuffer.wrap(bytes).getInt();
+            if (seed < 0) {
+                throw new IOException(path + " holds a negative seed " + seed);
+            }
+            return seed;
         }
         catch (IOException e) {
-            log.warn("error while reading the seed file for id generation", e);
+            throw new UncheckedIOException("error while reading the seed file for id generation", e);
         }
     }
 
+    private static Path tempPath() {
+        return Path.of(FILENAME + ".tmp");
+    }
+
     public static int generate() {
-        CURRENT_ID++;
-        try (
-                FileOutputStream file = new FileOutputStream(FILENAME);
-                DataOutputStream out = new DataOutputStream(file);
-        ) {
-            out.writeInt(CURRENT_ID);
+        return generate(1);
+    }
+
+    /**
+     * Allocates {@code count} consecutive ids at once and returns the first
+     * one; a batch larger than a block costs a single seed file write.
+     */
+    public static int generate(int count) {
+        if (count < 1) {
+            throw new IllegalArgumentException("count must be positive: " + count);
+        }
+        while (true) {
+            int id = NEXT_ID.get();
+            int last = id + count - 1;
+            // RESERVED_ID only grows, so reading it after NEXT_ID is safe
+            if (last <= RESERVED_ID) {
+                if (NEXT_ID.compareAndSet(id, last + 1)) {
+                    return id;
+                }
+            } else {
+                reserve(last);
+            }
+        }
+    }
+
+    // makes sure that ids up to and including the given one are reserved
+    private static synchronized void reserve(int id) {
+        if (id <= RESERVED_ID) {
+            // another thread reserved a new block in the mean time
+            return;
+        }
+        int reserved = Math.max(id, NEXT_ID.get() - 1 + BLOCK_SIZE);
+        writeSeed(reserved);
+        RESERVED_ID = reserved;
+    }
+
+    // the seed goes to a temp file that is forced and then renamed over the
+    // seed file, so a crash leaves either the old seed or the new one
+    private static void writeSeed(int seed) {
+        Path temp = tempPath();
+        try {
+            try (FileChannel out = FileChannel.open(temp,
+                    StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                out.write(ByteBuffer.allocate(Integer.BYTES).putInt(0, seed));
+                // the block must be on disk before any of its ids is used
+                out.force(true);
+            }
+            try {
+                Files.move(temp, Path.of(FILENAME), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, Path.of(FILENAME), StandardCopyOption.REPLACE_EXISTING);
+            }
+            // a lost rename would bring back the old seed, and with it ids already used
+            SnapshotWriter.forceDirectory(Path.of(FILENAME));
         }
         catch (IOException e) {
-            log.warn("error while writing the seed file for id generation", e);
+            throw new UncheckedIOException("error while writing the seed file for id generation", e);
         }
-        return CURRENT_ID;
     }
 }
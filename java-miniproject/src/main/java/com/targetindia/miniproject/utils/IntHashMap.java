@@ -0,0 +1,220 @@
+package com.targetindia.miniproject.utils;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * Hash map from primitive {@code int} keys to objects that iterates in
+ * insertion order, like a {@link java.util.LinkedHashMap}, without boxing
+ * the keys or allocating an entry object per mapping.
+ * <p>
+ * The mappings are kept in two dense arrays ({@code keys} and
+ * {@code values}) in insertion order, and an open-addressing table with
+ * linear probing maps a key to its position in them. Replacing the value of
+ * a key keeps its position. A removed mapping leaves a hole (a null value)
+ * that iteration skips; the holes are squeezed out when the arrays fill up.
+ * That is why null values are not allowed. Not thread-safe.
+ */
+public class IntHashMap<V> {
+
+    private static final int EMPTY = -1;
+
+    // slot -> position in keys/values, or EMPTY; twice as long as keys
+    private int[] table;
+    private int[] keys;
+    private Object[] values;
+
+    // positions used in keys/values, including holes
+    private int used;
+    private int size;
+    private int modCount;
+
+    public IntHashMap() {
+        this(8);
+    }
+
+    public IntHashMap(int expectedSize) {
+        allocate(Math.max(4, Integer.highestOneBit(Math.max(expectedSize, 1) * 2 - 1)));
+    }
+
+    private void allocate(int capacity) {
+        table = new int[capacity * 2];
+        Arrays.fill(table, EMPTY);
+        keys = new int[capacity];
+        values = new Object[capacity];
+    }
+
+    private static int slotOf(int key, int mask) {
+        int hash = key * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    // position of the key in keys/values, or -1
+    private int indexOf(int key) {
+        int mask = table.length - 1;
+        for (int slot = slotOf(key, mask); table[slot] != EMPTY; slot = (slot + 1) & mask) {
+            int index = table[slot];
+            // a hole keeps its slot, so that probing goes on past it
+            if (keys[index] == key && values[index] != null) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean containsKey(int key) {
+        return indexOf(key) >= 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        int index = indexOf(key);
+        return index < 0 ? null : (V) values[index];
+    }
+
+    /**
+     * @return the previous value of the key, or null
+     */
+    @SuppressWarnings("unchecked")
+    public V put(int key, V value) {
+        Objects.requireNonNull(value, "value");
+        int index = indexOf(key);
+        if (index >= 0) {
+            V previous = (V) values[index];
+            values[index] = value;
+            return previous;
+        }
+        if (used == keys.length) {
+            // squeeze out the holes, and grow if that does not free enough room
+            rehash(size >= keys.length / 2 ? keys.length * 2 : keys.length);
+        }
+        int mask = table.length - 1;
+        int slot = slotOf(key, mask);
+        while (table[slot] != EMPTY) {
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = used;
+        keys[used] = key;
+        values[used] = value;
+        used++;
+        size++;
+        modCount++;
+        return null;
+    }
+
+    /**
+     * @return the removed value, or null if the key was not mapped
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(int key) {
+        int index = indexOf(key);
+        if (index < 0) {
+            return null;
+        }
+        V previous = (V) values[index];
+        values[index] = null;
+        size--;
+        modCount++;
+        return previous;
+    }
+
+    public void clear() {
+        allocate(4);
+        used = 0;
+        size = 0;
+        modCount++;
+    }
+
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        int oldUsed = used;
+        allocate(capacity);
+        used = 0;
+        int mask = table.length - 1;
+        for (int i = 0; i < oldUsed; i++) {
+            if (oldValues[i] != null) {
+                int slot = slotOf(oldKeys[i], mask);
+                while (table[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                table[slot] = used;
+                keys[used] = oldKeys[i];
+                values[used] = oldValues[i];
+                used++;
+            }
+        }
+        modCount++;
+    }
+
+    // the keys, in insertion order
+    public int[] keys() {
+        int[] result = new int[size];
+        int n = 0;
+        for (int i = 0; i < used; i++) {
+            if (values[i] != null) {
+                result[n++] = keys[i];
+            }
+        }
+        return result;
+    }
+
+    // a live view of the values, in insertion order
+    public Collection<V> values() {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<V> iterator() {
+                return new ValueIterator();
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private class ValueIterator implements Iterator<V> {
+        private final int expectedModCount = modCount;
+        private int next = skipHoles(0);
+
+        private int skipHoles(int index) {
+            while (index < used && values[index] == null) {
+                index++;
+            }
+            return index;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < used;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (next >= used) {
+                throw new NoSuchElementException();
+            }
+            V value = (V) values[next];
+            next = skipHoles(next + 1);
+            return value;
+        }
+    }
+}
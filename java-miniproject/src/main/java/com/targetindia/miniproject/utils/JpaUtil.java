@@ -4,18 +4,43 @@ import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityManagerFactory;
 import jakarta.persistence.Persistence;
 
+import java.util.HashMap;
+import java.util.Map;
+
 public final class JpaUtil {
     private JpaUtil() {
     }
 
-    private static final EntityManagerFactory emf;
+    // created on first use, so that daos with a database of their own
+    // never connect to the one configured in persistence.xml
+    private static class Default {
+        static final EntityManagerFactory emf = createEntityManagerFactory(Map.of());
+    }
 
-    static {
-        emf = Persistence.createEntityManagerFactory("MINI-PROJECT");
+    // jakarta.persistence.* and hibernate.* system properties win over persistence.xml,
+    // e.g. -Djakarta.persistence.jdbc.url=jdbc:h2:mem:test for a throwaway database
+    private static Map<String, String> overrides() {
+        var overrides = new HashMap<String, String>();
+        for (String name : System.getProperties().stringPropertyNames()) {
+            if (name.startsWith("jakarta.persistence.") || name.startsWith("hibernate.")) {
+                overrides.put(name, System.getProperty(name));
+            }
+        }
+        return overrides;
     }
 
+    // the factory of persistence.xml, with the given properties on top
+    public static EntityManagerFactory createEntityManagerFactory(Map<String, String> properties) {
+        var overrides = overrides();
+        overrides.putAll(properties);
+        return Persistence.createEntityManagerFactory("MINI-PROJECT", overrides);
+    }
+
+    public static EntityManagerFactory getEntityManagerFactory() {
+        return Default.emf;
+    }
 
     public static EntityManager createEntityManager(){
-        return emf.createEntityManager();
+        return Default.emf.createEntityManager();
     }
 }
@@ -0,0 +1,70 @@
+package com.targetindia.miniproject.utils;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records latencies from many threads into an HdrHistogram, for
+ * percentiles since the start and since the last report.
+ * <p>
+ * {@link #record(long)} goes to a {@link Recorder}, which is wait-free for
+ * the recording threads; the recorded values are moved into the long-lived
+ * histograms only when a snapshot is taken. Values are kept with 2
+ * significant digits (1% precision) up to {@link #MAX_NANOS}; longer ones
+ * are recorded as that.
+ */
+public class LatencyRecorder {
+
+    public static final long MAX_NANOS = TimeUnit.MINUTES.toNanos(10);
+    private static final int SIGNIFICANT_DIGITS = 2;
+
+    /**
+     * Latencies of a period, in nanoseconds.
+     */
+    public record Snapshot(long count, double mean, long p50, long p99, long p999, long max) {
+    }
+
+    private final Recorder recorder = new Recorder(MAX_NANOS, SIGNIFICANT_DIGITS);
+    private final Histogram total = new Histogram(MAX_NANOS, SIGNIFICANT_DIGITS);
+    private final Histogram sinceReport = new Histogram(MAX_NANOS, SIGNIFICANT_DIGITS);
+    private Histogram interval;
+
+    public void record(long nanos) {
+        recorder.recordValue(Math.max(0, Math.min(nanos, MAX_NANOS)));
+    }
+
+    // the latencies since this recorder was created
+    public synchronized Snapshot total() {
+        drain();
+        return snapshotOf(total);
+    }
+
+    // the latencies since the previous call
+    public synchronized Snapshot takeSinceReport() {
+        drain();
+        var snapshot = snapshotOf(sinceReport);
+        sinceReport.reset();
+        return snapshot;
+    }
+
+    private void drain() {
+        interval = recorder.getIntervalHistogram(interval);
+        total.add(interval);
+        sinceReport.add(interval);
+    }
+
+    private static Snapshot snapshotOf(Histogram histogram) {
+        if (histogram.getTotalCount() == 0) {
+            return new Snapshot(0, 0, 0, 0, 0, 0);
+        }
+        return new Snapshot(
+                histogram.getTotalCount(),
+                histogram.getMean(),
+                histogram.getValueAtPercentile(50),
+                histogram.getValueAtPercentile(99),
+                histogram.getValueAtPercentile(99.9),
+                histogram.getMaxValue());
+    }
+}
@@ -0,0 +1,172 @@
+package com.targetindia.miniproject.utils;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.function.Function;
+import java.util.zip.CRC32;
+
+/**
+ * Writes a text file as a crash-consistent snapshot: the lines go to a
+ * temp file next to the target, which is forced to disk and then renamed
+ * over the target in one atomic step. A reader (or a crash) sees either the
+ * whole old file or the whole new one, never a truncated mix.
+ * <p>
+ * The last line of a snapshot is a footer, {@code #crc32=<hex>,rows=<n>},
+ * holding the CRC-32 of all the bytes before it; {@link #verify(FileChannel)}
+ * checks it on load. Files without a footer (written by hand, or by an
+ * older version) are accepted as they are.
+ */
+@Slf4j
+public final class SnapshotWriter {
+    private SnapshotWriter() {
+    }
+
+    private static final int BUFFER_SIZE = 1024 * 1024;
+    private static final String FOOTER_PREFIX = "#crc32=";
+    private static final int MAX_FOOTER_LENGTH = 64;
+
+    // returns the size of the file written
+    public static <T> long write(Path target, String header, Collection<T> rows,
+                                 Function<T, String> format) throws IOException {
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        var crc = new CRC32();
+        long size;
+        try (FileChannel channel = FileChannel.open(temp,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            var buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            put(channel, buffer, crc, header);
+            for (T row : rows) {
+                put(channel, buffer, crc, format.apply(row));
+            }
+            drain(channel, buffer, crc);
+
+            var footer = String.format("%s%08x,rows=%d\n", FOOTER_PREFIX, crc.getValue(), rows.size());
+            buffer.put(footer.getBytes(StandardCharsets.US_ASCII));
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+            size = channel.position();
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+
+        try {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        forceDirectory(target);
+        return size;
+    }
+
+    private static void put(FileChannel channel, ByteBuffer buffer, CRC32 crc, String line) throws IOException {
+        byte[] bytes = (line + '\n').getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > buffer.remaining()) {
+            drain(channel, buffer, crc);
+        }
+        if (bytes.length > buffer.capacity()) {
+            crc.update(bytes);
+            var wrapped = ByteBuffer.wrap(bytes);
+            while (wrapped.hasRemaining()) {
+                channel.write(wrapped);
+            }
+        } else {
+            buffer.put(bytes);
+        }
+    }
+
+    private static void drain(FileChannel channel, ByteBuffer buffer, CRC32 crc) throws IOException {
+        buffer.flip();
+        crc.update(buffer.duplicate());
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    // makes the rename itself durable; not every platform can open a directory
+    static void forceDirectory(Path target) {
+        Path dir = target.toAbsolutePath().getParent();
+        try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            log.debug("could not force directory {}", dir, e);
+        }
+    }
+
+    /**
+     * Checks the footer of a snapshot against its contents.
+     *
+     * @return where the rows end (and the footer starts); the size of the
+     * file if it has no footer
+     * @throws IOException if the checksum does not match
+     */
+    public static long verify(FileChannel channel) throws IOException {
+        long end = dataEnd(channel);
+        String footer = readFooter(channel);
+        if (footer == null) {
+            log.debug("no checksum footer, skipping verification");
+            return end;
+        }
+
+        long expected;
+        try {
+            expected = Long.parseLong(footer.substring(FOOTER_PREFIX.length(), footer.indexOf(',')), 16);
+        } catch (RuntimeException e) {
+            throw new IOException("unreadable checksum footer: " + footer);
+        }
+        var crc = new CRC32();
+        for (long position = 0; position < end; position += Integer.MAX_VALUE) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY,
+                    position, Math.min(Integer.MAX_VALUE, end - position));
+            crc.update(mapped);
+        }
+        if (crc.getValue() != expected) {
+            throw new IOException(String.format("checksum mismatch: footer has %08x, contents have %08x",
+                    expected, crc.getValue()));
+        }
+        return end;
+    }
+
+    // like verify, without reading the whole file
+    public static long dataEnd(FileChannel channel) throws IOException {
+        String footer = readFooter(channel);
+        return footer == null ? channel.size() : channel.size() - footer.length() - 1;
+    }
+
+    // the last line, without its line break, if it is a footer
+    private static String readFooter(FileChannel channel) throws IOException {
+        long size = channel.size();
+        int length = (int) Math.min(size, MAX_FOOTER_LENGTH);
+        var tail = ByteBuffer.allocate(length);
+        while (tail.hasRemaining()) {
+            if (channel.read(tail, size - length + tail.position()) < 0) {
+                return null;
+            }
+        }
+        String text = new String(tail.array(), StandardCharsets.US_ASCII);
+        if (!text.endsWith("\n")) {
+            return null;
+        }
+        int start = text.lastIndexOf('\n', text.length() - 2) + 1;
+        if (start == 0 && length < size) {
+            return null; // the last line is longer than any footer
+        }
+        String line = text.substring(start, text.length() - 1);
+        return line.startsWith(FOOTER_PREFIX) ? line : null;
+    }
+}
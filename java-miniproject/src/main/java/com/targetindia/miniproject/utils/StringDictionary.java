@@ -0,0 +1,63 @@
+package com.targetindia.miniproject.utils;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Dictionary encoding for low-cardinality string columns such as city.
+ * <p>
+ * Every distinct value gets a small int code (0, 1, 2, ... in order of first
+ * appearance) and is stored once; {@link #intern(String)} hands out that one
+ * instance, so a million customers in a few hundred cities share a few
+ * hundred strings. The codes can index per-value arrays or lists, turning a
+ * lookup by value into a dictionary lookup and an array access.
+ * <p>
+ * Thread-safe: lookups of known values take no lock, and new values are
+ * added under the dictionary's monitor. Codes are never reused or removed.
+ */
+public class StringDictionary {
+
+    private final ConcurrentHashMap<String, Integer> codes = new ConcurrentHashMap<>();
+    private volatile String[] values = new String[16];
+    private int size;
+
+    // code of the value, adding it if it is new
+    public int encode(String value) {
+        Integer code = codes.get(value);
+        if (code != null) {
+            return code;
+        }
+        synchronized (this) {
+            code = codes.get(value);
+            if (code != null) {
+                return code;
+            }
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size] = value;
+            // published after the value, so whoever sees the code can decode it
+            codes.put(value, size);
+            return size++;
+        }
+    }
+
+    // code of the value, or -1 if it is not in the dictionary
+    public int find(String value) {
+        Integer code = value == null ? null : codes.get(value);
+        return code == null ? -1 : code;
+    }
+
+    public String decode(int code) {
+        return values[code];
+    }
+
+    // the dictionary's instance of the value
+    public String intern(String value) {
+        return value == null ? null : decode(encode(value));
+    }
+
+    public int size() {
+        return codes.size();
+    }
+}
@@ -0,0 +1,199 @@
+package com.targetindia.miniproject.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Trie of words, each word holding the set of int ids it was added for.
+ * <p>
+ * Children are kept in arrays sorted by their char, so walking the trie
+ * visits the words in {@link String#compareTo} order, which makes a prefix
+ * query a walk of one subtree that can stop early. Approximate matching
+ * walks the trie with one row of the edit distance table per level, shared
+ * by all the words below that node, and skips a subtree as soon as every
+ * entry of its row is over the limit; so it touches a small part of the
+ * trie instead of computing a distance for every word. Not thread-safe.
+ */
+public class WordTrie {
+
+    private static final char[] NO_LABELS = new char[0];
+    private static final Node[] NO_CHILDREN = new Node[0];
+
+    private static class Node {
+        char[] labels = NO_LABELS;
+        Node[] children = NO_CHILDREN;
+        int childCount;
+        // null unless a word ends here
+        IntHashMap<Boolean> ids;
+
+        int indexOf(char c) {
+            return Arrays.binarySearch(labels, 0, childCount, c);
+        }
+
+        Node child(char c) {
+            int index = indexOf(c);
+            return index < 0 ? null : children[index];
+        }
+
+        Node addChild(char c) {
+            int index = indexOf(c);
+            if (index >= 0) {
+                return children[index];
+            }
+            index = -index - 1;
+            if (childCount == labels.length) {
+                int capacity = Math.max(2, childCount * 2);
+                labels = Arrays.copyOf(labels, capacity);
+                children = Arrays.copyOf(children, capacity);
+            }
+            System.arraycopy(labels, index, labels, index + 1, childCount - index);
+            System.arraycopy(children, index, children, index + 1, childCount - index);
+            var child = new Node();
+            labels[index] = c;
+            children[index] = child;
+            childCount++;
+            return child;
+        }
+
+        void removeChild(char c) {
+            int index = indexOf(c);
+            if (index >= 0) {
+                System.arraycopy(labels, index + 1, labels, index, childCount - index - 1);
+                System.arraycopy(children, index + 1, children, index, childCount - index - 1);
+                children[--childCount] = null;
+            }
+        }
+
+        boolean isEmpty() {
+            return ids == null && childCount == 0;
+        }
+    }
+
+    public interface Visitor {
+        // the ids are sorted; returns false to stop the walk
+        boolean visit(String word, int[] ids);
+    }
+
+    private final Node root = new Node();
+    private int size;
+
+    // number of distinct words
+    public int size() {
+        return size;
+    }
+
+    public void add(String word, int id) {
+        var node = root;
+        for (int i = 0; i < word.length(); i++) {
+            node = node.addChild(word.charAt(i));
+        }
+        if (node.ids == null) {
+            node.ids = new IntHashMap<>(2);
+            size++;
+        }
+        node.ids.put(id, Boolean.TRUE);
+    }
+
+    public void remove(String word, int id) {
+        var path = new Node[word.length() + 1];
+        path[0] = root;
+        for (int i = 0; i < word.length(); i++) {
+            path[i + 1] = path[i].child(word.charAt(i));
+            if (path[i + 1] == null) {
+                return;
+            }
+        }
+        var node = path[word.length()];
+        if (node.ids == null || node.ids.remove(id) == null || !node.ids.isEmpty()) {
+            return;
+        }
+        node.ids = null;
+        size--;
+        // drop the nodes that no longer lead to a word
+        for (int i = word.length(); i > 0 && path[i].isEmpty(); i--) {
+            path[i - 1].removeChild(word.charAt(i - 1));
+        }
+    }
+
+    // visits the words starting with the prefix, in order
+    public void visitPrefix(String prefix, Visitor visitor) {
+        var node = root;
+        for (int i = 0; i < prefix.length() && node != null; i++) {
+            node = node.child(prefix.charAt(i));
+        }
+        if (node != null) {
+            visit(node, new StringBuilder(prefix), visitor);
+        }
+    }
+
+    private static boolean visit(Node node, StringBuilder word, Visitor visitor) {
+        if (node.ids != null) {
+            int[] ids = node.ids.keys();
+            Arrays.sort(ids);
+            if (!visitor.visit(word.toString(), ids)) {
+                return false;
+            }
+        }
+        for (int i = 0; i < node.childCount; i++) {
+            word.append(node.labels[i]);
+            boolean more = visit(node.children[i], word, visitor);
+            word.setLength(word.length() - 1);
+            if (!more) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Finds the words within {@code maxEdits} edits of the given word, where
+     * an edit inserts, deletes or replaces a char, or swaps two adjacent
+     * chars (optimal string alignment distance).
+     *
+     * @return for each distance from 0 to maxEdits, the (unsorted) ids of
+     * every word at that distance, one array per word
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public List<int[]>[] match(String word, int maxEdits) {
+        List<int[]>[] matches = new List[maxEdits + 1];
+        for (int i = 0; i <= maxEdits; i++) {
+            matches[i] = new ArrayList<>();
+        }
+        int[] first = new int[word.length() + 1];
+        for (int j = 0; j <= word.length(); j++) {
+            first[j] = j;
+        }
+        for (int i = 0; i < root.childCount; i++) {
+            match(root.children[i], root.labels[i], (char) 0, word, first, null, maxEdits, matches);
+        }
+        return matches;
+    }
+
+    // row is the distance row of the parent, previous that of the grandparent
+    private static void match(Node node, char c, char parentChar, String word,
+                              int[] row, int[] previous, int maxEdits, List<int[]>[] matches) {
+        int[] current = new int[row.length];
+        current[0] = row[0] + 1;
+        int rowMin = current[0];
+        for (int j = 1; j < row.length; j++) {
+            int cost = word.charAt(j - 1) == c ? 0 : 1;
+            int d = Math.min(Math.min(row[j] + 1, current[j - 1] + 1), row[j - 1] + cost);
+            if (previous != null && j > 1 && word.charAt(j - 2) == c && word.charAt(j - 1) == parentChar) {
+                d = Math.min(d, previous[j - 2] + 1);
+            }
+            current[j] = d;
+            rowMin = Math.min(rowMin, d);
+        }
+        if (rowMin > maxEdits) {
+            return;
+        }
+        int distance = current[row.length - 1];
+        if (node.ids != null && distance <= maxEdits) {
+            matches[distance].add(node.ids.keys());
+        }
+        for (int i = 0; i < node.childCount; i++) {
+            match(node.children[i], node.labels[i], c, word, current, row, maxEdits, matches);
+        }
+    }
+}
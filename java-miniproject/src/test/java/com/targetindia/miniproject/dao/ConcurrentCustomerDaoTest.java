@@ -0,0 +1,142 @@
+package com.targetindia.miniproject.dao;
+
+import com.targetindia.miniproject.model.Customer;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConcurrentCustomerDaoTest {
+
+    private static final int THREADS = 8;
+    private static final int OPERATIONS = 20_000;
+
+    // few keys and cities, so that most writes race with another one for the same key
+    private static final int KEYS = 32;
+    private static final String[] CITIES = {"Bangalore", "Chennai", "Delhi", "Mumbai"};
+
+    private final ConcurrentCustomerDao dao = new ConcurrentCustomerDao();
+
+    // every id saved so far, deleted or not, for updates and deletes to pick from
+    private final List<Integer> savedIds = new CopyOnWriteArrayList<>();
+
+    private static String email(int key) {
+        return "user" + key + "@example.com";
+    }
+
+    private static String phone(int key) {
+        return "98450" + String.format("%05d", key);
+    }
+
+    private static Customer randomCustomer(Integer id) {
+        var random = ThreadLocalRandom.current();
+        // a null key now and then, which claims nothing
+        String email = random.nextInt(10) == 0 ? null : email(random.nextInt(KEYS));
+        String phone = random.nextInt(10) == 0 ? null : phone(random.nextInt(KEYS));
+        return new Customer(id, "Customer " + random.nextInt(1000),
+                CITIES[random.nextInt(CITIES.length)], email, phone);
+    }
+
+    // one random save, update or delete; losing a race for a key, or for the
+    // id, is an expected DaoException
+    private void randomWrite() {
+        var random = ThreadLocalRandom.current();
+        try {
+            int choice = random.nextInt(10);
+            if (choice < 4 || savedIds.isEmpty()) {
+                savedIds.add(dao.save(randomCustomer(null)).getId());
+            } else if (choice < 9) {
+                dao.update(randomCustomer(savedIds.get(random.nextInt(savedIds.size()))));
+            } else {
+                dao.deleteById(savedIds.get(random.nextInt(savedIds.size())));
+            }
+        } catch (DaoException e) {
+            // the key is owned by another customer, or the id is deleted
+        }
+    }
+
+    @Test
+    void indexesAgreeWithCustomersAfterRacingWrites() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        var start = new CountDownLatch(1);
+        var workers = new ArrayList<Future<?>>();
+        try {
+            for (int t = 0; t < THREADS; t++) {
+                workers.add(pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < OPERATIONS; i++) {
+                        randomWrite();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (var worker : workers) {
+                // rethrows anything other than an expected DaoException
+                worker.get(2, TimeUnit.MINUTES);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertIndexesAgree();
+    }
+
+    private void assertIndexesAgree() throws DaoException {
+        var customers = dao.getAll();
+        assertTrue(customers.size() <= KEYS * KEYS, "more customers than there are key pairs");
+
+        var emails = new HashSet<String>();
+        var phones = new HashSet<String>();
+        var byCity = new HashMap<String, List<Integer>>();
+        for (var customer : customers) {
+            int id = customer.getId();
+            if (customer.getEmail() != null) {
+                assertTrue(emails.add(customer.getEmail()), "email shared: " + customer.getEmail());
+                var owner = dao.getByEmail(customer.getEmail());
+                assertNotNull(owner, "email index misses id " + id);
+                assertEquals(id, owner.getId());
+            }
+            if (customer.getPhone() != null) {
+                assertTrue(phones.add(customer.getPhone()), "phone shared: " + customer.getPhone());
+                var owner = dao.getByPhone(customer.getPhone());
+                assertNotNull(owner, "phone index misses id " + id);
+                assertEquals(id, owner.getId());
+            }
+            byCity.computeIfAbsent(customer.getCity(), city -> new ArrayList<>()).add(id);
+        }
+
+        for (var city : CITIES) {
+            var expected = byCity.getOrDefault(city, List.of());
+            var actual = dao.getByCity(city).stream().map(Customer::getId).toList();
+            assertEquals(expected, actual, "city index of " + city);
+        }
+
+        // a key held by no customer must not be left claimed in its index:
+        // nobody is found by it, and a new customer can take it
+        for (int key = 0; key < KEYS; key++) {
+            if (!emails.contains(email(key))) {
+                assertNull(dao.getByEmail(email(key)));
+                dao.save(new Customer(null, "Fresh", CITIES[0], email(key), null));
+            }
+            if (!phones.contains(phone(key))) {
+                assertNull(dao.getByPhone(phone(key)));
+                dao.save(new Customer(null, "Fresh", CITIES[0], null, phone(key)));
+            }
+        }
+    }
+}